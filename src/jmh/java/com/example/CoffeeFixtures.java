@@ -0,0 +1,107 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Builds the deterministic coffee mixes shared by the JMH benchmarks, so that
+ * {@link CoffeeList} and {@link java.util.ArrayList} are always measured against
+ * exactly the same data.
+ */
+final class CoffeeFixtures {
+    private static final String[] BRANDS = {"Lavazza", "Nescafe", "Taster's Choice", "Caribou", "Starbucks", "Peet's"};
+    private static final String[] GRIND_SIZES = {"Fine", "Medium", "Coarse"};
+    private static final String[] COUNTRIES = {"Italy", "Colombia", "Brazil", "Ethiopia"};
+    private static final String[] PACKAGES = {"Can", "Packet", "Jar"};
+
+    private CoffeeFixtures() {
+    }
+
+    /**
+     * Creates the i-th coffee of the mix, cycling through whole bean, ground and instant coffee.
+     * The weight grows with {@code i}, so no two coffees of the mix are equal.
+     *
+     * @param i the position of the coffee in the mix
+     * @return a new Coffee object
+     */
+    static Coffee coffee(int i) {
+        double weight = 0.2 + i * 0.001;
+        double price = 4.0 + (i % 29) * 0.5;
+        double quality = (i % 11);
+        double volume = 0.1 + (i % 7) * 0.05;
+        String brand = BRANDS[i % BRANDS.length];
+        switch (i % 3) {
+            case 0:
+                return new WholeBeanCoffee(weight, price, quality, brand, volume, COUNTRIES[i % COUNTRIES.length]);
+            case 1:
+                return new GroundCoffee(weight, price, quality, brand, volume, GRIND_SIZES[i % GRIND_SIZES.length]);
+            default:
+                return new InstantCoffee(weight, price, quality, brand, volume, PACKAGES[i % PACKAGES.length]);
+        }
+    }
+
+    /**
+     * Creates {@code size} coffees of the mix.
+     *
+     * @param size the number of coffees to create
+     * @return an array holding the coffees in mix order
+     */
+    static Coffee[] coffees(int size) {
+        Coffee[] coffees = new Coffee[size];
+        for (int i = 0; i < size; i++) {
+            coffees[i] = coffee(i);
+        }
+        return coffees;
+    }
+
+    /**
+     * Creates an empty list of the requested implementation.
+     *
+     * @param implementation {@code "CoffeeList"}, {@code "IndexedCoffeeList"} or {@code "ArrayList"}
+     * @return an empty list
+     */
+    static List<Coffee> newList(String implementation) {
+        switch (implementation) {
+            case "CoffeeList":
+                return new CoffeeList();
+            case "IndexedCoffeeList":
+                CoffeeList indexed = new CoffeeList();
+                indexed.enableIndex();
+                return indexed;
+            case "ArrayList":
+                return new ArrayList<>();
+            default:
+                throw new IllegalArgumentException("Unknown list implementation: " + implementation);
+        }
+    }
+
+    /**
+     * Creates a list of the requested implementation filled with the given coffees.
+     *
+     * @param implementation {@code "CoffeeList"}, {@code "IndexedCoffeeList"} or {@code "ArrayList"}
+     * @param coffees        the coffees to add, in order
+     * @return the filled list
+     */
+    static List<Coffee> newList(String implementation, Coffee[] coffees) {
+        List<Coffee> list = newList(implementation);
+        for (Coffee coffee : coffees) {
+            list.add(coffee);
+        }
+        return list;
+    }
+
+    /**
+     * Picks every {@code step}-th coffee, used as the argument of the bulk operations.
+     *
+     * @param coffees the source coffees
+     * @param step    the distance between two picked coffees
+     * @return the picked coffees
+     */
+    static Collection<Coffee> every(Coffee[] coffees, int step) {
+        List<Coffee> picked = new ArrayList<>();
+        for (int i = 0; i < coffees.length; i += step) {
+            picked.add(coffees[i]);
+        }
+        return picked;
+    }
+}
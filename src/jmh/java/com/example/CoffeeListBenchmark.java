@@ -0,0 +1,124 @@
+package com.example;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the non-destructive and self-restoring {@link CoffeeList} operations against
+ * {@link java.util.ArrayList} holding the same coffee mix.
+ *
+ * <p>Operations that change the list (insertion and removal by object) undo their own
+ * change within the same invocation, so the list keeps its size across invocations.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoffeeListBenchmark {
+
+    @Param({"CoffeeList", "IndexedCoffeeList", "ArrayList"})
+    public String implementation;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    private Coffee[] coffees;
+    private List<Coffee> list;
+    private Coffee middle;
+    private Coffee extra;
+
+    /**
+     * Fills the list under test with {@code size} coffees of the shared mix.
+     */
+    @Setup
+    public void setUp() {
+        coffees = CoffeeFixtures.coffees(size);
+        list = CoffeeFixtures.newList(implementation, coffees);
+        middle = coffees[size / 2];
+        extra = CoffeeFixtures.coffee(size);
+    }
+
+    /**
+     * Appends {@code size} coffees to an empty list, including every growth of the backing array.
+     */
+    @Benchmark
+    public List<Coffee> add() {
+        List<Coffee> filled = CoffeeFixtures.newList(implementation);
+        for (Coffee coffee : coffees) {
+            filled.add(coffee);
+        }
+        return filled;
+    }
+
+    /**
+     * Inserts a coffee in the middle of the list and removes it again by index.
+     */
+    @Benchmark
+    public Coffee addAtIndex() {
+        int index = size / 2;
+        list.add(index, extra);
+        return list.remove(index);
+    }
+
+    /**
+     * Removes the middle coffee by object and puts it back at its position.
+     */
+    @Benchmark
+    public boolean removeObject() {
+        boolean removed = list.remove(middle);
+        list.add(size / 2, middle);
+        return removed;
+    }
+
+    /**
+     * Looks up the position of the middle coffee.
+     */
+    @Benchmark
+    public int indexOf() {
+        return list.indexOf(middle);
+    }
+
+    /**
+     * Takes the middle half of the list as a sub list and reads its ends.
+     */
+    @Benchmark
+    public void subList(Blackhole blackhole) {
+        List<Coffee> half = list.subList(size / 4, size - size / 4);
+        blackhole.consume(half.get(0));
+        blackhole.consume(half.get(half.size() - 1));
+    }
+
+    /**
+     * Iterates over the whole list and sums the prices.
+     */
+    @Benchmark
+    public double iterate() {
+        double total = 0;
+        for (Coffee coffee : list) {
+            total += coffee.getPrice();
+        }
+        return total;
+    }
+
+    /**
+     * Copies the list into a typed array.
+     */
+    @Benchmark
+    public Coffee[] toArray() {
+        return list.toArray(new Coffee[0]);
+    }
+}
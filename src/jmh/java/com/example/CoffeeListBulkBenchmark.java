@@ -0,0 +1,77 @@
+package com.example;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the destructive bulk operations {@code retainAll} and {@code removeAll} of
+ * {@link CoffeeList} against {@link java.util.ArrayList}.
+ *
+ * <p>Each invocation needs a freshly filled list, so the list is rebuilt before every
+ * invocation and the operations are timed as single shots. The argument collection
+ * holds every tenth coffee of the list.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CoffeeListBulkBenchmark {
+
+    @Param({"CoffeeList", "ArrayList"})
+    public String implementation;
+
+    @Param({"10", "1000", "100000", "10000000"})
+    public int size;
+
+    private Coffee[] coffees;
+    private Collection<Coffee> everyTenth;
+    private List<Coffee> list;
+
+    /**
+     * Creates the shared coffee mix and the argument collection once per trial.
+     */
+    @Setup(Level.Trial)
+    public void createMix() {
+        coffees = CoffeeFixtures.coffees(size);
+        everyTenth = CoffeeFixtures.every(coffees, 10);
+    }
+
+    /**
+     * Refills the list under test before every invocation.
+     */
+    @Setup(Level.Invocation)
+    public void refill() {
+        list = CoffeeFixtures.newList(implementation, coffees);
+    }
+
+    /**
+     * Keeps every tenth coffee and drops the rest.
+     */
+    @Benchmark
+    public boolean retainAll() {
+        return list.retainAll(everyTenth);
+    }
+
+    /**
+     * Drops every tenth coffee and keeps the rest.
+     */
+    @Benchmark
+    public boolean removeAll() {
+        return list.removeAll(everyTenth);
+    }
+}
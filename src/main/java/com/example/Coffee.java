@@ -2,13 +2,19 @@ package com.example;
 /**
  * Abstract class Coffee represents a general type of coffee with attributes like weight,
  * price, quality, brand, and volume, and provides methods for calculating the price-to-weight ratio.
+ * <p>
+ * Coffees are immutable values: two coffees are equal if they are of the same class and
+ * all their attributes, including the subtype-specific one, are equal. The hash code is
+ * computed on first use and cached.
+ * </p>
  */
 public abstract class Coffee {
-    private double weight;
-    private double price;
-    private double quality;
-    private String brand;
-    private double volume;
+    private final double weight;
+    private final double price;
+    private final double quality;
+    private final String brand;
+    private final double volume;
+    private int hash;
 
     /**
      * Constructs a Coffee object with specified weight, price, quality, brand, and volume.
@@ -39,7 +45,7 @@ public abstract class Coffee {
         this.weight = weight;
         this.price = price;
         this.quality = quality;
-        this.brand = brand;
+        this.brand = CoffeeStrings.intern(brand);
         this.volume = volume;
     }
 
@@ -104,4 +110,81 @@ public abstract class Coffee {
      * @return a string representing the type of coffee.
      */
     public abstract String getType();
+
+    /**
+     * Compares this coffee with another object for equality. Two coffees are equal if
+     * they are of the same class, their common attributes are equal and
+     * {@link #detailEquals(Coffee)} holds. Numeric attributes are compared as by
+     * {@link Double#compare(double, double)}.
+     *
+     * @param o the object to compare with
+     * @return true if the object is a coffee equal to this one
+     */
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || o.getClass() != getClass()) return false;
+        Coffee other = (Coffee) o;
+        int h = hash;
+        int otherHash = other.hash;
+        if (h != 0 && otherHash != 0 && h != otherHash) return false;
+        return Double.compare(weight, other.weight) == 0
+                && Double.compare(price, other.price) == 0
+                && Double.compare(quality, other.quality) == 0
+                && Double.compare(volume, other.volume) == 0
+                && brand.equals(other.brand)
+                && detailEquals(other);
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}, cached after the first call.
+     *
+     * @return the hash code of this coffee
+     */
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = hashOf(getClass(), weight, price, quality, brand, volume, detailHashCode());
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Computes the hash code of a coffee from its attributes, without the coffee.
+     * Never returns 0, which marks a hash that is not computed yet.
+     */
+    static int hashOf(Class<? extends Coffee> type, double weight, double price, double quality, String brand,
+            double volume, int detailHash) {
+        int h = type.getName().hashCode();
+        h = 31 * h + Double.hashCode(weight);
+        h = 31 * h + Double.hashCode(price);
+        h = 31 * h + Double.hashCode(quality);
+        h = 31 * h + brand.hashCode();
+        h = 31 * h + Double.hashCode(volume);
+        h = 31 * h + detailHash;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Compares the subtype-specific attributes of this coffee with those of a coffee of
+     * the same class. Subclasses with attributes of their own override this method
+     * together with {@link #detailHashCode()}.
+     *
+     * @param other a coffee of the same class as this one
+     * @return true if the subtype-specific attributes are equal
+     */
+    protected boolean detailEquals(Coffee other) {
+        return true;
+    }
+
+    /**
+     * Returns the hash code of the subtype-specific attributes of this coffee.
+     *
+     * @return the hash code of the subtype-specific attributes
+     */
+    protected int detailHashCode() {
+        return 0;
+    }
 }
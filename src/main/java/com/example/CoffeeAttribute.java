@@ -0,0 +1,49 @@
+package com.example;
+/**
+ * Numeric attributes of a {@link Coffee} that collections can index, sort and aggregate by.
+ */
+public enum CoffeeAttribute {
+    /** The weight of the coffee, see {@link Coffee#getWeight()}. */
+    WEIGHT {
+        @Override
+        public double of(Coffee coffee) {
+            return coffee.getWeight();
+        }
+    },
+    /** The price of the coffee, see {@link Coffee#getPrice()}. */
+    PRICE {
+        @Override
+        public double of(Coffee coffee) {
+            return coffee.getPrice();
+        }
+    },
+    /** The quality rating of the coffee, see {@link Coffee#getQuality()}. */
+    QUALITY {
+        @Override
+        public double of(Coffee coffee) {
+            return coffee.getQuality();
+        }
+    },
+    /** The volume of the coffee, see {@link Coffee#getVolume()}. */
+    VOLUME {
+        @Override
+        public double of(Coffee coffee) {
+            return coffee.getVolume();
+        }
+    },
+    /** The price-to-weight ratio of the coffee, see {@link Coffee#getPriceToWeightRatio()}. */
+    PRICE_TO_WEIGHT {
+        @Override
+        public double of(Coffee coffee) {
+            return coffee.getPriceToWeightRatio();
+        }
+    };
+
+    /**
+     * Returns the value of this attribute for the specified coffee.
+     *
+     * @param coffee the coffee to read the attribute of
+     * @return the value of the attribute
+     */
+    public abstract double of(Coffee coffee);
+}
@@ -0,0 +1,45 @@
+package com.example;
+
+/**
+ * Listener recording every edit of a {@link CoffeeList} into a {@link CoffeeDelta}.
+ * <p>
+ * Insertions, removals and replacements are appended to the log as they are reported, so
+ * bulk operations and sorts are recorded as the per-element edits they fire. Removals
+ * keep only their position, since replaying them does not need the removed coffee.
+ * Clearing the list drops the edits recorded before it, because they no longer affect
+ * the result.
+ * </p>
+ */
+final class CoffeeChangeLog implements CoffeeListListener {
+    private final CoffeeDelta.Builder log = new CoffeeDelta.Builder();
+
+    @Override
+    public void added(int index, Coffee coffee) {
+        log.add(index, coffee);
+    }
+
+    @Override
+    public void removed(int index, Coffee coffee) {
+        log.remove(index);
+    }
+
+    @Override
+    public void replaced(int index, Coffee oldValue, Coffee replacement) {
+        log.set(index, replacement);
+    }
+
+    @Override
+    public void cleared() {
+        log.clear();
+    }
+
+    /**
+     * Returns the edits recorded since the log was created or last drained, and starts
+     * a new log.
+     *
+     * @return the recorded edits
+     */
+    CoffeeDelta drain() {
+        return log.build();
+    }
+}
@@ -0,0 +1,239 @@
+package com.example;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable batch of edits made to a {@link CoffeeList}, in the order they were made.
+ * <p>
+ * A delta is a compact operation log: every edit is stored as an operation code, a
+ * position and, for insertions and replacements, the new coffee, in three parallel
+ * arrays. Positions refer to the list as it is when the edit is made, exactly like the
+ * arguments of {@code add(int, Coffee)}, {@code set} and {@code remove(int)}. A list
+ * with change tracking enabled records its edits with {@link CoffeeList#takeDelta()}, and
+ * {@link CoffeeList#applyDelta(CoffeeDelta)} replays them on another copy of the list, so
+ * keeping two copies in sync costs time and traffic proportional to the number of edits
+ * rather than to the size of the catalogue.
+ * </p>
+ * <p>
+ * Deltas travel between processes with {@link #writeTo(DataOutput)} and
+ * {@link #readFrom(DataInput)}.
+ * </p>
+ */
+public final class CoffeeDelta {
+    static final byte ADD = 0;
+    static final byte REMOVE = 1;
+    static final byte SET = 2;
+    static final byte CLEAR = 3;
+
+    /** The delta without edits. */
+    public static final CoffeeDelta EMPTY = new CoffeeDelta(new byte[0], new int[0], new Coffee[0], 0);
+
+    private final byte[] ops;
+    private final int[] indexes;
+    private final Coffee[] coffees;
+    private final int length;
+
+    private CoffeeDelta(byte[] ops, int[] indexes, Coffee[] coffees, int length) {
+        this.ops = ops;
+        this.indexes = indexes;
+        this.coffees = coffees;
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of edits in this delta.
+     *
+     * @return the number of edits
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * Checks if this delta contains no edits.
+     *
+     * @return true if applying the delta leaves a list unchanged, false otherwise
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    byte op(int i) {
+        return ops[i];
+    }
+
+    int index(int i) {
+        return indexes[i];
+    }
+
+    Coffee coffee(int i) {
+        return coffees[i];
+    }
+
+    /**
+     * Writes this delta in a compact binary form: the number of edits, then for every
+     * edit its operation code, its position and, for insertions and replacements, the
+     * kind tag, brand, weight, price, quality, volume and subtype detail of the coffee.
+     *
+     * @param out the output to write to
+     * @throws IOException if the output cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+            out.writeByte(ops[i]);
+            out.writeInt(indexes[i]);
+            if (ops[i] == ADD || ops[i] == SET) {
+                Coffee coffee = coffees[i];
+                CoffeeKind kind = CoffeeKind.of(coffee);
+                out.writeByte(kind.tag());
+                out.writeUTF(coffee.getBrand());
+                out.writeDouble(coffee.getWeight());
+                out.writeDouble(coffee.getPrice());
+                out.writeDouble(coffee.getQuality());
+                out.writeDouble(coffee.getVolume());
+                out.writeUTF(kind.detailOf(coffee));
+            }
+        }
+    }
+
+    /**
+     * Reads a delta written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the delta
+     * @throws IOException if the input cannot be read or does not hold a valid delta
+     */
+    public static CoffeeDelta readFrom(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Invalid delta length: " + length);
+        Builder builder = new Builder();
+        for (int i = 0; i < length; i++) {
+            byte op = in.readByte();
+            int index = in.readInt();
+            switch (op) {
+                case ADD:
+                case SET:
+                    Coffee coffee;
+                    try {
+                        CoffeeKind kind = CoffeeKind.fromTag(in.readByte());
+                        String brand = in.readUTF();
+                        double weight = in.readDouble();
+                        double price = in.readDouble();
+                        double quality = in.readDouble();
+                        double volume = in.readDouble();
+                        coffee = kind.create(weight, price, quality, brand, volume, in.readUTF());
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Invalid coffee in delta: " + e.getMessage(), e);
+                    }
+                    builder.append(op, index, coffee);
+                    break;
+                case REMOVE:
+                case CLEAR:
+                    builder.append(op, index, null);
+                    break;
+                default:
+                    throw new IOException("Invalid delta operation: " + op);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects edits into a {@link CoffeeDelta}, for example to build a delta by hand or
+     * to decode one from another format. The builder does not check positions; they are
+     * validated when the delta is applied.
+     */
+    public static final class Builder {
+        private byte[] ops = new byte[8];
+        private int[] indexes = new int[8];
+        private Coffee[] coffees = new Coffee[8];
+        private int length;
+
+        /**
+         * Records the insertion of a coffee at the specified position.
+         *
+         * @param index  the position of the inserted coffee
+         * @param coffee the inserted coffee
+         * @return this builder
+         */
+        public Builder add(int index, Coffee coffee) {
+            if (coffee == null) throw new NullPointerException("Coffee cannot be null.");
+            return append(ADD, index, coffee);
+        }
+
+        /**
+         * Records the removal of the coffee at the specified position.
+         *
+         * @param index the position of the removed coffee
+         * @return this builder
+         */
+        public Builder remove(int index) {
+            return append(REMOVE, index, null);
+        }
+
+        /**
+         * Records the replacement of the coffee at the specified position.
+         *
+         * @param index       the position of the replaced coffee
+         * @param replacement the coffee now at that position
+         * @return this builder
+         */
+        public Builder set(int index, Coffee replacement) {
+            if (replacement == null) throw new NullPointerException("Coffee cannot be null.");
+            return append(SET, index, replacement);
+        }
+
+        /**
+         * Records the removal of every coffee. The edits recorded before are superseded
+         * and dropped from the delta.
+         *
+         * @return this builder
+         */
+        public Builder clear() {
+            Arrays.fill(coffees, 0, length, null);
+            length = 0;
+            return append(CLEAR, 0, null);
+        }
+
+        /**
+         * Checks if no edits were recorded since the builder was created or last built.
+         *
+         * @return true if the builder holds no edits, false otherwise
+         */
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        /**
+         * Returns a delta of the recorded edits and empties the builder.
+         *
+         * @return the recorded edits
+         */
+        public CoffeeDelta build() {
+            if (length == 0) return EMPTY;
+            CoffeeDelta delta = new CoffeeDelta(Arrays.copyOf(ops, length), Arrays.copyOf(indexes, length),
+                    Arrays.copyOf(coffees, length), length);
+            Arrays.fill(coffees, 0, length, null);
+            length = 0;
+            return delta;
+        }
+
+        private Builder append(byte op, int index, Coffee coffee) {
+            if (op == CLEAR && length > 0) return clear();
+            if (length == ops.length) {
+                int capacity = length * 2;
+                ops = Arrays.copyOf(ops, capacity);
+                indexes = Arrays.copyOf(indexes, capacity);
+                coffees = Arrays.copyOf(coffees, capacity);
+            }
+            ops[length] = op;
+            indexes[length] = index;
+            coffees[length] = coffee;
+            length++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Factory that hands out a single shared instance for every distinct coffee record.
+ * <p>
+ * Coffees are immutable values, so a coffee equal to one created earlier can be reused
+ * instead of constructed again. The factory looks records up in an intern cache keyed by
+ * the hash of their raw attributes, and compares the attributes of the cached coffees
+ * directly, so a cache hit neither allocates nor re-runs the validation of the
+ * constructors. Feeds that are refreshed with mostly unchanged rows therefore produce
+ * almost no new coffees.
+ * </p>
+ * <p>
+ * The cache holds its coffees through weak references: a coffee no longer referenced
+ * anywhere else is reclaimed by the garbage collector and dropped from the cache. The
+ * cache is split into independently locked stripes, so the factory can be shared by
+ * threads ingesting in parallel.
+ * </p>
+ */
+public final class CoffeeFactory {
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Creates a factory with an empty cache.
+     */
+    public CoffeeFactory() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    /**
+     * Returns a coffee of the specified kind with the specified attributes, reusing the
+     * cached instance if the factory already handed out an equal coffee that is still alive.
+     *
+     * @param kind    the kind of coffee
+     * @param weight  the weight of the coffee
+     * @param price   the price of the coffee
+     * @param quality the quality rating of the coffee
+     * @param brand   the brand name of the coffee
+     * @param volume  the volume of the coffee
+     * @param detail  the grind size, country of origin or package type, depending on the kind
+     * @return a coffee with these attributes
+     * @throws IllegalArgumentException if an attribute is invalid
+     */
+    public Coffee create(CoffeeKind kind, double weight, double price, double quality, String brand, double volume,
+            String detail) {
+        if (kind == null) throw new NullPointerException("Kind cannot be null.");
+        if (brand == null || detail == null) return kind.create(weight, price, quality, brand, volume, detail);
+        int hash = Coffee.hashOf(typeOf(kind), weight, price, quality, brand, volume, detail.hashCode());
+        Stripe stripe = stripes[hash >>> (Integer.SIZE - STRIPE_BITS)];
+        synchronized (stripe) {
+            Coffee cached = stripe.find(hash, kind, weight, price, quality, brand, volume, detail);
+            if (cached != null) return cached;
+            Coffee created = kind.create(weight, price, quality, brand, volume, detail);
+            stripe.add(hash, created);
+            return created;
+        }
+    }
+
+    /**
+     * Returns a whole bean coffee with the specified attributes, see {@link #create}.
+     *
+     * @param weight          the weight of the coffee
+     * @param price           the price of the coffee
+     * @param quality         the quality rating of the coffee
+     * @param brand           the brand name of the coffee
+     * @param volume          the volume of the coffee
+     * @param countryOfOrigin the country where the beans are sourced from
+     * @return a whole bean coffee with these attributes
+     */
+    public WholeBeanCoffee wholeBean(double weight, double price, double quality, String brand, double volume,
+            String countryOfOrigin) {
+        return (WholeBeanCoffee) create(CoffeeKind.WHOLE_BEAN, weight, price, quality, brand, volume, countryOfOrigin);
+    }
+
+    /**
+     * Returns a ground coffee with the specified attributes, see {@link #create}.
+     *
+     * @param weight    the weight of the coffee
+     * @param price     the price of the coffee
+     * @param quality   the quality rating of the coffee
+     * @param brand     the brand name of the coffee
+     * @param volume    the volume of the coffee
+     * @param grindSize the grind size of the coffee
+     * @return a ground coffee with these attributes
+     */
+    public GroundCoffee ground(double weight, double price, double quality, String brand, double volume,
+            String grindSize) {
+        return (GroundCoffee) create(CoffeeKind.GROUND, weight, price, quality, brand, volume, grindSize);
+    }
+
+    /**
+     * Returns an instant coffee with the specified attributes, see {@link #create}.
+     *
+     * @param weight      the weight of the coffee
+     * @param price       the price of the coffee
+     * @param quality     the quality rating of the coffee
+     * @param brand       the brand name of the coffee
+     * @param volume      the volume of the coffee
+     * @param packageType the type of package the coffee is sold in
+     * @return an instant coffee with these attributes
+     */
+    public InstantCoffee instant(double weight, double price, double quality, String brand, double volume,
+            String packageType) {
+        return (InstantCoffee) create(CoffeeKind.INSTANT, weight, price, quality, brand, volume, packageType);
+    }
+
+    /**
+     * Returns the number of coffees in the cache, including coffees already reclaimed but
+     * not yet dropped.
+     *
+     * @return the approximate number of cached coffees
+     */
+    public int cachedCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.expunge();
+                count += stripe.count;
+            }
+        }
+        return count;
+    }
+
+    private static Class<? extends Coffee> typeOf(CoffeeKind kind) {
+        switch (kind) {
+            case WHOLE_BEAN:
+                return WholeBeanCoffee.class;
+            case GROUND:
+                return GroundCoffee.class;
+            default:
+                return InstantCoffee.class;
+        }
+    }
+
+    /**
+     * Weak reference to a cached coffee, chained with the other entries of its bucket.
+     */
+    private static final class Entry extends WeakReference<Coffee> {
+        private final int hash;
+        private Entry next;
+
+        Entry(Coffee coffee, int hash, Entry next, ReferenceQueue<Coffee> queue) {
+            super(coffee, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    /**
+     * One independently locked hash table of the cache. Callers hold the stripe's monitor.
+     */
+    private static final class Stripe {
+        private final ReferenceQueue<Coffee> reclaimed = new ReferenceQueue<>();
+        private Entry[] table = new Entry[16];
+        private int count;
+
+        Coffee find(int hash, CoffeeKind kind, double weight, double price, double quality, String brand,
+                double volume, String detail) {
+            for (Entry e = table[bucketOf(hash)]; e != null; e = e.next) {
+                if (e.hash != hash) continue;
+                Coffee coffee = e.get();
+                if (coffee != null && CoffeeKind.of(coffee) == kind
+                        && Double.compare(coffee.getWeight(), weight) == 0
+                        && Double.compare(coffee.getPrice(), price) == 0
+                        && Double.compare(coffee.getQuality(), quality) == 0
+                        && Double.compare(coffee.getVolume(), volume) == 0
+                        && coffee.getBrand().equals(brand)
+                        && kind.detailOf(coffee).equals(detail)) {
+                    return coffee;
+                }
+            }
+            return null;
+        }
+
+        void add(int hash, Coffee coffee) {
+            expunge();
+            if (count >= table.length * 3 / 4) resize();
+            int bucket = bucketOf(hash);
+            table[bucket] = new Entry(coffee, hash, table[bucket], reclaimed);
+            count++;
+        }
+
+        /**
+         * Unlinks the entries whose coffee was reclaimed by the garbage collector.
+         */
+        void expunge() {
+            for (Object ref; (ref = reclaimed.poll()) != null; ) {
+                Entry dead = (Entry) ref;
+                int bucket = bucketOf(dead.hash);
+                Entry previous = null;
+                for (Entry e = table[bucket]; e != null; previous = e, e = e.next) {
+                    if (e == dead) {
+                        if (previous == null) {
+                            table[bucket] = e.next;
+                        } else {
+                            previous.next = e.next;
+                        }
+                        count--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private int bucketOf(int hash) {
+            return (hash ^ (hash >>> 16)) & (table.length - 1);
+        }
+
+        private void resize() {
+            Entry[] grown = new Entry[table.length * 2];
+            for (Entry head : table) {
+                for (Entry e = head; e != null; ) {
+                    Entry next = e.next;
+                    int bucket = (e.hash ^ (e.hash >>> 16)) & (grown.length - 1);
+                    e.next = grown[bucket];
+                    grown[bucket] = e;
+                    e = next;
+                }
+            }
+            table = grown;
+        }
+    }
+}
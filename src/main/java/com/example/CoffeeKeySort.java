@@ -0,0 +1,131 @@
+package com.example;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort of coffees by precomputed {@code double} keys.
+ * <p>
+ * The keys and the coffees are kept in two parallel arrays and moved together, so every
+ * comparison is a {@link Double#compare(double, double)} between two primitives instead
+ * of two attribute reads through the coffees. Ranges large enough are sorted in parallel
+ * on the common {@link ForkJoinPool}.
+ * </p>
+ */
+final class CoffeeKeySort {
+    private static final int INSERTION_THRESHOLD = 32;
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private CoffeeKeySort() {
+    }
+
+    /**
+     * Sorts the first {@code size} coffees of the array by the specified attribute.
+     *
+     * @param coffees   the coffees to sort in place
+     * @param size      the number of coffees to sort
+     * @param attribute the attribute to sort by, in ascending order
+     * @param parallel  whether to sort large arrays on several cores
+     */
+    static void sort(Coffee[] coffees, int size, CoffeeAttribute attribute, boolean parallel) {
+        double[] keys = new double[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = attribute.of(coffees[i]);
+        }
+        double[] keyBuffer = keys.clone();
+        Coffee[] coffeeBuffer = new Coffee[size];
+        System.arraycopy(coffees, 0, coffeeBuffer, 0, size);
+        if (parallel && size >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new SortTask(keyBuffer, coffeeBuffer, keys, coffees, 0, size));
+        } else {
+            mergeSort(keyBuffer, coffeeBuffer, keys, coffees, 0, size);
+        }
+    }
+
+    /**
+     * Sorts the range of the destination arrays, using the source arrays, which hold the
+     * same elements in the range, as scratch space.
+     */
+    private static void mergeSort(double[] srcKeys, Coffee[] src, double[] dstKeys, Coffee[] dst, int lo, int hi) {
+        if (hi - lo < INSERTION_THRESHOLD) {
+            insertionSort(dstKeys, dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSort(dstKeys, dst, srcKeys, src, lo, mid);
+        mergeSort(dstKeys, dst, srcKeys, src, mid, hi);
+        merge(srcKeys, src, dstKeys, dst, lo, mid, hi);
+    }
+
+    private static void insertionSort(double[] keys, Coffee[] coffees, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            double key = keys[i];
+            Coffee coffee = coffees[i];
+            int j = i - 1;
+            while (j >= lo && Double.compare(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                coffees[j + 1] = coffees[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            coffees[j + 1] = coffee;
+        }
+    }
+
+    /**
+     * Merges the sorted halves of the source range into the destination, taking from the
+     * left half on ties to keep the sort stable.
+     */
+    private static void merge(double[] srcKeys, Coffee[] src, double[] dstKeys, Coffee[] dst, int lo, int mid, int hi) {
+        if (Double.compare(srcKeys[mid - 1], srcKeys[mid]) <= 0) {
+            System.arraycopy(srcKeys, lo, dstKeys, lo, hi - lo);
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        int left = lo;
+        int right = mid;
+        for (int i = lo; i < hi; i++) {
+            if (right >= hi || (left < mid && Double.compare(srcKeys[left], srcKeys[right]) <= 0)) {
+                dstKeys[i] = srcKeys[left];
+                dst[i] = src[left++];
+            } else {
+                dstKeys[i] = srcKeys[right];
+                dst[i] = src[right++];
+            }
+        }
+    }
+
+    /**
+     * Parallel counterpart of {@link #mergeSort}: sorts both halves as subtasks, then merges them.
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] srcKeys;
+        private final Coffee[] src;
+        private final double[] dstKeys;
+        private final Coffee[] dst;
+        private final int lo;
+        private final int hi;
+
+        SortTask(double[] srcKeys, Coffee[] src, double[] dstKeys, Coffee[] dst, int lo, int hi) {
+            this.srcKeys = srcKeys;
+            this.src = src;
+            this.dstKeys = dstKeys;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo < PARALLEL_THRESHOLD) {
+                mergeSort(srcKeys, src, dstKeys, dst, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(dstKeys, dst, srcKeys, src, lo, mid),
+                    new SortTask(dstKeys, dst, srcKeys, src, mid, hi));
+            merge(srcKeys, src, dstKeys, dst, lo, mid, hi);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example;
+/**
+ * The concrete kinds of {@link Coffee}, used by the storage formats that keep coffees as
+ * plain values instead of objects.
+ * <p>
+ * Each kind knows how to read its subtype-specific attribute, its <em>detail</em>
+ * (the country of origin, grind size or package type), and how to build a coffee of its
+ * kind back from plain values.
+ * </p>
+ */
+public enum CoffeeKind {
+    /** {@link WholeBeanCoffee}, whose detail is the country of origin. */
+    WHOLE_BEAN {
+        @Override
+        public Coffee create(double weight, double price, double quality, String brand, double volume, String detail) {
+            return new WholeBeanCoffee(weight, price, quality, brand, volume, detail);
+        }
+
+        @Override
+        public String detailOf(Coffee coffee) {
+            return ((WholeBeanCoffee) coffee).getCountryOfOrigin();
+        }
+    },
+    /** {@link GroundCoffee}, whose detail is the grind size. */
+    GROUND {
+        @Override
+        public Coffee create(double weight, double price, double quality, String brand, double volume, String detail) {
+            return new GroundCoffee(weight, price, quality, brand, volume, detail);
+        }
+
+        @Override
+        public String detailOf(Coffee coffee) {
+            return ((GroundCoffee) coffee).getGrindSize();
+        }
+    },
+    /** {@link InstantCoffee}, whose detail is the package type. */
+    INSTANT {
+        @Override
+        public Coffee create(double weight, double price, double quality, String brand, double volume, String detail) {
+            return new InstantCoffee(weight, price, quality, brand, volume, detail);
+        }
+
+        @Override
+        public String detailOf(Coffee coffee) {
+            return ((InstantCoffee) coffee).getPackageType();
+        }
+    };
+
+    private static final CoffeeKind[] KINDS = values();
+
+    /**
+     * Creates a coffee of this kind.
+     *
+     * @param weight  the weight of the coffee
+     * @param price   the price of the coffee
+     * @param quality the quality rating of the coffee
+     * @param brand   the brand name of the coffee
+     * @param volume  the volume of the coffee
+     * @param detail  the subtype-specific attribute of the coffee
+     * @return a new coffee of this kind
+     * @throws IllegalArgumentException if any of the values is invalid
+     */
+    public abstract Coffee create(double weight, double price, double quality, String brand, double volume, String detail);
+
+    /**
+     * Returns the subtype-specific attribute of a coffee of this kind.
+     *
+     * @param coffee a coffee of this kind
+     * @return the country of origin, grind size or package type of the coffee
+     */
+    public abstract String detailOf(Coffee coffee);
+
+    /**
+     * Returns the tag identifying this kind in binary formats.
+     *
+     * @return the tag of this kind
+     */
+    public byte tag() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Returns the kind identified by the specified tag.
+     *
+     * @param tag a tag returned by {@link #tag()}
+     * @return the kind with that tag
+     * @throws IllegalArgumentException if no kind has that tag
+     */
+    public static CoffeeKind fromTag(int tag) {
+        if (tag < 0 || tag >= KINDS.length) {
+            throw new IllegalArgumentException("Unknown coffee kind tag: " + tag);
+        }
+        return KINDS[tag];
+    }
+
+    /**
+     * Returns the kind of the specified coffee.
+     *
+     * @param coffee the coffee to classify
+     * @return the kind of the coffee
+     * @throws IllegalArgumentException if the coffee is of none of the known kinds
+     */
+    public static CoffeeKind of(Coffee coffee) {
+        if (coffee instanceof WholeBeanCoffee) return WHOLE_BEAN;
+        if (coffee instanceof GroundCoffee) return GROUND;
+        if (coffee instanceof InstantCoffee) return INSTANT;
+        throw new IllegalArgumentException("Unsupported coffee type: " + coffee.getClass().getName());
+    }
+}
@@ -1,5 +1,7 @@
 package com.example;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Custom list implementation for managing a collection of Coffee objects.
@@ -7,20 +9,78 @@ import java.util.*;
  * This collection allows for storing and manipulating coffee objects, supporting
  * all methods specified in the List interface. The internal structure uses an
  * array with an initial capacity of 15 elements, which grows by 30% whenever the
- * list reaches capacity.
+ * list reaches capacity. Both the initial capacity and the {@link GrowthPolicy}
+ * can be chosen when the list is created, and the capacity can be managed explicitly
+ * with {@link #ensureCapacity(int)} and {@link #trimToSize()}.
+ * </p>
+ * <p>
+ * Lookups by object scan the list linearly. Large lists that are searched often can
+ * opt into a hash index with {@link #enableIndex()}, which makes {@code contains},
+ * {@code indexOf}, {@code lastIndexOf} and {@code remove(Object)} find their element
+ * in O(1) on average, at the cost of extra memory per element.
+ * </p>
+ * <p>
+ * The list supports fast random access, and its {@link #spliterator()} splits by index
+ * range, so parallel streams over the list divide the work evenly between threads.
+ * </p>
+ * <p>
+ * Lists that are kept in sync with a copy elsewhere can record their edits with
+ * {@link #enableChangeTracking()} and ship them as a {@link CoffeeDelta}, which the copy
+ * replays with {@link #applyDelta(CoffeeDelta)} in a single pass over its array.
+ * </p>
+ * <p>
+ * Iterators, list iterators and spliterators are fail-fast: if the list is structurally
+ * modified after they are created, other than through the iterator's own {@code remove}
+ * or {@code add}, they throw a {@link ConcurrentModificationException} instead of
+ * silently skipping or repeating elements. Replacing elements with {@code set} is not a
+ * structural modification.
  * </p>
  */
-public class CoffeeList implements List<Coffee> {
+public class CoffeeList implements List<Coffee>, RandomAccess {
     private Coffee[] elements;
     private int size = 0;
+    private int modCount = 0;
+    private final GrowthPolicy growthPolicy;
+    private CoffeeListListener[] listeners = NO_LISTENERS;
+    private CoffeePositionIndex positionIndex;
+    private CoffeeListMetrics metrics;
+    private CoffeeChangeLog changeLog;
+    private static final CoffeeListListener[] NO_LISTENERS = new CoffeeListListener[0];
     private static final int INITIAL_CAPACITY = 15;
-    private static final double GROWTH_FACTOR = 1.3;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int HASHED_LOOKUP_THRESHOLD = 16;
 
     /**
      * Default constructor that initializes the CoffeeList with an initial capacity.
      */
     public CoffeeList() {
-        this.elements = new Coffee[INITIAL_CAPACITY];
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor that initializes the CoffeeList with the specified initial capacity
+     * and the default growth policy.
+     *
+     * @param initialCapacity the initial capacity of the internal array.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public CoffeeList(int initialCapacity) {
+        this(initialCapacity, GrowthPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructor that initializes the CoffeeList with the specified initial capacity
+     * and growth policy.
+     *
+     * @param initialCapacity the initial capacity of the internal array.
+     * @param growthPolicy    the policy deciding how the internal array grows.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public CoffeeList(int initialCapacity, GrowthPolicy growthPolicy) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Initial capacity cannot be negative.");
+        if (growthPolicy == null) throw new NullPointerException("Growth policy cannot be null.");
+        this.elements = new Coffee[initialCapacity];
+        this.growthPolicy = growthPolicy;
     }
 
     /**
@@ -36,27 +96,216 @@ public class CoffeeList implements List<Coffee> {
 
     /**
      * Constructor that initializes the CoffeeList with a collection of Coffee objects.
+     * The internal array is sized from the collection, so it is allocated only once.
      *
      * @param coffees A collection of Coffee objects to add to the CoffeeList.
      */
     public CoffeeList(Collection<? extends Coffee> coffees) {
-        this();
-        if (coffees == null) throw new NullPointerException("Collection of coffees cannot be null.");
+        this(sizeOf(coffees));
         addAll(coffees);
     }
 
+    private static int sizeOf(Collection<? extends Coffee> coffees) {
+        if (coffees == null) throw new NullPointerException("Collection of coffees cannot be null.");
+        return coffees.size();
+    }
+
+    /**
+     * Increases the capacity of the internal array, if necessary, so that it can hold
+     * at least the specified number of elements without growing again.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * Trims the capacity of the internal array to the current size of the list,
+     * releasing the unused slack.
+     */
+    public void trimToSize() {
+        if (size < elements.length) {
+            CoffeeListMetrics m = metrics;
+            if (m != null) m.resized(elements.length, size, size);
+            elements = Arrays.copyOf(elements, size);
+        }
+    }
+
+    /**
+     * Ensures there is sufficient capacity in the internal array for an insertion.
+     *
+     * @param minCapacity the number of elements the list holds after the insertion
+     * @throws OutOfMemoryError if the required capacity overflows
+     */
+    private void ensureCapacityInternal(int minCapacity) {
+        if (minCapacity < 0) throw new OutOfMemoryError("Required array length is too large.");
+        if (minCapacity > elements.length) {
+            grow(minCapacity);
+        }
+    }
+
+    /**
+     * Replaces the internal array with a larger one chosen by the growth policy.
+     * An empty array grows at least to the initial capacity.
+     *
+     * @param minCapacity the number of elements the new array must be able to hold
+     */
+    private void grow(int minCapacity) {
+        int newCapacity = elements.length == 0
+                ? Math.max(minCapacity, INITIAL_CAPACITY)
+                : growthPolicy.grow(elements.length, minCapacity);
+        if (newCapacity < minCapacity) newCapacity = minCapacity;
+        if (newCapacity > MAX_CAPACITY) newCapacity = Math.max(minCapacity, MAX_CAPACITY);
+        CoffeeListMetrics m = metrics;
+        if (m != null) m.resized(elements.length, newCapacity, size);
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    /**
+     * Enables the hash index used by {@code contains}, {@code indexOf},
+     * {@code lastIndexOf} and {@code remove(Object)}. The index is kept in sync by every
+     * modification of the list. Calling this method on an indexed list has no effect.
+     */
+    public void enableIndex() {
+        if (positionIndex == null) {
+            positionIndex = new CoffeePositionIndex(this);
+            addListener(positionIndex);
+        }
+    }
+
+    /**
+     * Disables the hash index and releases its memory. Lookups by object scan the list again.
+     */
+    public void disableIndex() {
+        if (positionIndex != null) {
+            removeListener(positionIndex);
+            positionIndex = null;
+        }
+    }
+
+    /**
+     * Checks if lookups by object use the hash index.
+     *
+     * @return true if the hash index is enabled, false otherwise.
+     */
+    public boolean isIndexed() {
+        return positionIndex != null;
+    }
+
+    /**
+     * Starts recording every edit of this list, so that it can be taken as a
+     * {@link CoffeeDelta} with {@link #takeDelta()}. Calling this method on a tracked list
+     * has no effect.
+     */
+    public void enableChangeTracking() {
+        if (changeLog == null) {
+            changeLog = new CoffeeChangeLog();
+            addListener(changeLog);
+        }
+    }
+
+    /**
+     * Stops recording edits and discards the edits not taken yet.
+     */
+    public void disableChangeTracking() {
+        if (changeLog != null) {
+            removeListener(changeLog);
+            changeLog = null;
+        }
+    }
+
+    /**
+     * Checks if the edits of this list are recorded.
+     *
+     * @return true if change tracking is enabled, false otherwise.
+     */
+    public boolean isChangeTracking() {
+        return changeLog != null;
+    }
+
+    /**
+     * Returns the edits made to this list since change tracking was enabled or since the
+     * previous call, and starts recording a new delta. Applying the returned delta to a
+     * list equal to this list as it was before those edits makes it equal to this list.
+     *
+     * @return the recorded edits, in the order they were made
+     * @throws IllegalStateException if change tracking is not enabled
+     */
+    public CoffeeDelta takeDelta() {
+        if (changeLog == null) throw new IllegalStateException("Change tracking is not enabled.");
+        return changeLog.drain();
+    }
+
+    /**
+     * Attaches metrics that record the operations of this list from now on, or detaches
+     * them. Without metrics, the list records nothing and its instrumented paths only
+     * check that no metrics are attached. Bulk operations such as {@code clear} and
+     * {@link #applyDelta(CoffeeDelta)} count the coffees they append, insert and remove,
+     * without recording latencies. Sorts are not recorded, since they neither add nor
+     * remove coffees.
+     *
+     * @param metrics the metrics to record into, or null to stop recording
+     */
+    public void setMetrics(CoffeeListMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics this list records into.
+     *
+     * @return the attached metrics, or null if the list is not instrumented
+     */
+    public CoffeeListMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers a listener notified of every modification of this list.
+     *
+     * @param listener the listener to register
+     */
+    void addListener(CoffeeListListener listener) {
+        CoffeeListListener[] registered = Arrays.copyOf(listeners, listeners.length + 1);
+        registered[listeners.length] = listener;
+        listeners = registered;
+    }
+
     /**
-     * Ensures there is sufficient capacity in the internal array.
-     * If the current size reaches the array's capacity, the array size is increased
-     * by 30% of its current size.
+     * Unregisters a listener registered with {@link #addListener(CoffeeListListener)}.
+     *
+     * @param listener the listener to unregister
      */
-    private void ensureCapacity() {
-        if (size >= elements.length) {
-            int newCapacity = (int) (elements.length * GROWTH_FACTOR);
-            elements = Arrays.copyOf(elements, newCapacity);
+    void removeListener(CoffeeListListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                CoffeeListListener[] registered = new CoffeeListListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, registered, 0, i);
+                System.arraycopy(listeners, i + 1, registered, i, registered.length - i);
+                listeners = registered;
+                return;
+            }
         }
     }
 
+    private void fireAdded(int index, Coffee coffee) {
+        for (CoffeeListListener listener : listeners) listener.added(index, coffee);
+    }
+
+    private void fireRemoved(int index, Coffee coffee) {
+        for (CoffeeListListener listener : listeners) listener.removed(index, coffee);
+    }
+
+    private void fireReplaced(int index, Coffee oldValue, Coffee replacement) {
+        for (CoffeeListListener listener : listeners) listener.replaced(index, oldValue, replacement);
+    }
+
+    private void fireCleared() {
+        for (CoffeeListListener listener : listeners) listener.cleared();
+    }
+
     /**
      * Returns the current number of elements in the CoffeeList.
      *
@@ -96,20 +345,36 @@ public class CoffeeList implements List<Coffee> {
      */
     @Override
     public Iterator<Coffee> iterator() {
-        return new Iterator<>() {
-            private int currentIndex = 0;
+        return new Itr();
+    }
 
-            @Override
-            public boolean hasNext() {
-                return currentIndex < size;
-            }
+    /**
+     * Performs the given action for each element of the list, in order.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super Coffee> action) {
+        if (action == null) throw new NullPointerException("Action cannot be null.");
+        int expectedModCount = modCount;
+        Coffee[] snapshot = elements;
+        int end = size;
+        for (int i = 0; i < end && modCount == expectedModCount; i++) {
+            action.accept(snapshot[i]);
+        }
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+    }
 
-            @Override
-            public Coffee next() {
-                if (!hasNext()) throw new NoSuchElementException();
-                return elements[currentIndex++];
-            }
-        };
+    /**
+     * Returns a spliterator over the elements in this list. The spliterator splits the
+     * list into halves by index range and reports the SIZED, SUBSIZED, ORDERED and
+     * NONNULL characteristics. It binds to the list on first use.
+     *
+     * @return a spliterator over the Coffee objects in the CoffeeList.
+     */
+    @Override
+    public Spliterator<Coffee> spliterator() {
+        return new CoffeeSpliterator(0, -1, 0);
     }
 
     /**
@@ -151,8 +416,12 @@ public class CoffeeList implements List<Coffee> {
     @Override
     public boolean add(Coffee coffee) {
         if (coffee == null) throw new NullPointerException("Coffee cannot be null.");
-        ensureCapacity();
+        ensureCapacityInternal(size + 1);
+        modCount++;
         elements[size++] = coffee;
+        CoffeeListMetrics m = metrics;
+        if (m != null) m.appended(1);
+        fireAdded(size - 1, coffee);
         return true;
     }
 
@@ -189,26 +458,23 @@ public class CoffeeList implements List<Coffee> {
 
     /**
      * Adds all elements in the specified collection to this list.
+     * Null elements of the collection are skipped. The internal array is sized once
+     * for the whole collection.
      *
      * @param c the collection containing elements to be added.
      * @return true if the list changed as a result of the call.
      */
     @Override
     public boolean addAll(Collection<? extends Coffee> c) {
-        if (c == null) throw new NullPointerException("Collection of coffees cannot be null.");
-        boolean modified = false;
-        for (Coffee coffee : c) {
-            if (coffee != null) {
-                add(coffee);
-                modified = true;
-            }
-        }
-        return modified;
+        return addAll(size, c);
     }
+
     /**
      * Inserts all of the elements in the specified collection into this list,
      * starting at the specified position. Shifts the element currently at that
      * position (if any) and any subsequent elements to the right (optional operation).
+     * Null elements of the collection are skipped. The internal array is sized once and
+     * the subsequent elements are shifted once, whatever the size of the collection.
      *
      * @param index the index at which to insert the first element from the specified collection
      * @param c the collection of Coffee elements to be inserted
@@ -219,18 +485,36 @@ public class CoffeeList implements List<Coffee> {
     public boolean addAll(int index, Collection<? extends Coffee> c) {
         if (index < 0 || index > size) throw new IndexOutOfBoundsException();
         if (c == null) throw new NullPointerException("Collection of coffees cannot be null.");
-        boolean modified = false;
-        for (Coffee coffee : c) {
-            if (coffee != null) {
-                add(index++, coffee);
-                modified = true;
+        Object[] added = c.toArray();
+        int count = 0;
+        for (Object coffee : added) {
+            if (coffee != null) added[count++] = coffee;
+        }
+        if (count == 0) return false;
+        CoffeeListMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        ensureCapacityInternal(size + count);
+        modCount++;
+        int numMoved = size - index;
+        if (numMoved > 0) System.arraycopy(elements, index, elements, index + count, numMoved);
+        System.arraycopy(added, 0, elements, index, count);
+        size += count;
+        if (m != null) {
+            if (numMoved == 0) {
+                m.appended(count);
+            } else {
+                m.inserted(count, numMoved, start);
             }
         }
-        return modified;
+        for (int i = 0; i < count; i++) {
+            fireAdded(index + i, elements[index + i]);
+        }
+        return true;
     }
 
     /**
      * Removes from this list all elements that are contained in the specified collection.
+     * The list is compacted in a single pass, so the call runs in O(n + m).
      *
      * @param c collection containing elements to be removed from this list.
      * @return true if this list changed as a result of the call.
@@ -238,15 +522,14 @@ public class CoffeeList implements List<Coffee> {
     @Override
     public boolean removeAll(Collection<?> c) {
         if (c == null) throw new NullPointerException("Collection cannot be null.");
-        boolean modified = false;
-        for (Object e : c) {
-            modified |= remove(e);
-        }
-        return modified;
+        if (c.isEmpty() || size == 0) return false;
+        Collection<?> lookup = lookupOf(c);
+        return removeMatching(lookup::contains);
     }
 
     /**
      * Retains only the elements in this list that are contained in the specified collection.
+     * The list is compacted in a single pass, so the call runs in O(n + m).
      *
      * @param c collection containing elements to be retained in this list.
      * @return true if this list changed as a result of the call.
@@ -254,14 +537,86 @@ public class CoffeeList implements List<Coffee> {
     @Override
     public boolean retainAll(Collection<?> c) {
         if (c == null) throw new NullPointerException("Collection cannot be null.");
-        boolean modified = false;
-        for (int i = 0; i < size; i++) {
-            if (!c.contains(elements[i])) {
-                remove(i--);
-                modified = true;
+        if (size == 0) return false;
+        Collection<?> lookup = lookupOf(c);
+        return removeMatching(coffee -> !lookup.contains(coffee));
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the given predicate.
+     * The list is compacted in a single pass, shifting every kept element at most once.
+     *
+     * @param filter a predicate which returns true for elements to be removed
+     * @return true if any elements were removed
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Coffee> filter) {
+        if (filter == null) throw new NullPointerException("Filter cannot be null.");
+        return removeMatching(filter);
+    }
+
+    /**
+     * Removes every coffee equal to a coffee that precedes it in this list, keeping the
+     * first occurrence of each. The list is compacted in a single pass with a hash set,
+     * so the call runs in O(n).
+     *
+     * @return the number of coffees removed
+     */
+    public int deduplicate() {
+        int oldSize = size;
+        Set<Coffee> seen = new HashSet<>(Math.max(16, (int) (size / 0.75f) + 1));
+        removeMatching(coffee -> !seen.add(coffee));
+        return oldSize - size;
+    }
+
+    /**
+     * Returns a collection with a fast {@code contains} holding the same elements as the
+     * specified collection. Sets are used as they are; other collections larger than
+     * {@link #HASHED_LOOKUP_THRESHOLD} are copied into a {@link HashSet}.
+     *
+     * @param c the collection the elements of this list are checked against
+     * @return the collection to call {@code contains} on
+     */
+    private static Collection<?> lookupOf(Collection<?> c) {
+        if (c instanceof Set || c.size() <= HASHED_LOOKUP_THRESHOLD) return c;
+        return new HashSet<>(c);
+    }
+
+    /**
+     * Removes every element matching the filter by moving the kept elements towards the
+     * front of the array in one pass. If the filter throws, the elements not yet visited
+     * are kept, so the list stays consistent.
+     *
+     * @param filter a predicate which returns true for elements to be removed
+     * @return true if any elements were removed
+     */
+    private boolean removeMatching(Predicate<? super Coffee> filter) {
+        int oldSize = size;
+        int read = 0;
+        int write = 0;
+        try {
+            for (; read < oldSize; read++) {
+                Coffee coffee = elements[read];
+                if (!filter.test(coffee)) {
+                    elements[write++] = coffee;
+                } else {
+                    fireRemoved(write, coffee);
+                }
+            }
+        } finally {
+            if (read < oldSize) {
+                System.arraycopy(elements, read, elements, write, oldSize - read);
+                write += oldSize - read;
+            }
+            if (write < oldSize) {
+                Arrays.fill(elements, write, oldSize, null);
+                size = write;
+                modCount++;
+                CoffeeListMetrics m = metrics;
+                if (m != null) m.removed(oldSize - write);
             }
         }
-        return modified;
+        return size != oldSize;
     }
 
     /**
@@ -269,8 +624,12 @@ public class CoffeeList implements List<Coffee> {
      */
     @Override
     public void clear() {
+        modCount++;
         Arrays.fill(elements, 0, size, null);
+        CoffeeListMetrics m = metrics;
+        if (m != null) m.removed(size);
         size = 0;
+        fireCleared();
     }
 
     /**
@@ -300,6 +659,7 @@ public class CoffeeList implements List<Coffee> {
         if (element == null) throw new NullPointerException("Coffee cannot be null.");
         Coffee oldValue = elements[index];
         elements[index] = element;
+        fireReplaced(index, oldValue, element);
         return oldValue;
     }
 
@@ -315,10 +675,21 @@ public class CoffeeList implements List<Coffee> {
     public void add(int index, Coffee element) {
         if (index < 0 || index > size) throw new IndexOutOfBoundsException();
         if (element == null) throw new NullPointerException("Coffee cannot be null.");
-        ensureCapacity();
+        CoffeeListMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        ensureCapacityInternal(size + 1);
+        modCount++;
         System.arraycopy(elements, index, elements, index + 1, size - index);
         elements[index] = element;
         size++;
+        if (m != null) {
+            if (index == size - 1) {
+                m.appended(1);
+            } else {
+                m.inserted(1, size - 1 - index, start);
+            }
+        }
+        fireAdded(index, element);
     }
     /**
      * Removes the Coffee element at the specified position in this list.
@@ -331,10 +702,15 @@ public class CoffeeList implements List<Coffee> {
     @Override
     public Coffee remove(int index) {
         if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        CoffeeListMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        modCount++;
         Coffee removed = elements[index];
         int numMoved = size - index - 1;
         if (numMoved > 0) System.arraycopy(elements, index + 1, elements, index, numMoved);
         elements[--size] = null;
+        if (m != null) m.removed(1, numMoved, start);
+        fireRemoved(index, removed);
         return removed;
     }
 
@@ -348,10 +724,21 @@ public class CoffeeList implements List<Coffee> {
     @Override
     public int indexOf(Object o) {
         if (o == null) return -1;
+        CoffeeListMetrics m = metrics;
+        if (positionIndex != null) {
+            if (m != null) m.indexedLookup();
+            return positionIndex.firstIndexOf(o);
+        }
+        long start = m == null ? 0 : System.nanoTime();
+        int found = -1;
         for (int i = 0; i < size; i++) {
-            if (o.equals(elements[i])) return i;
+            if (o.equals(elements[i])) {
+                found = i;
+                break;
+            }
         }
-        return -1;
+        if (m != null) m.scanned("indexOf", size, found < 0 ? size : found + 1, start);
+        return found;
     }
 
     /**
@@ -364,10 +751,21 @@ public class CoffeeList implements List<Coffee> {
     @Override
     public int lastIndexOf(Object o) {
         if (o == null) return -1;
+        CoffeeListMetrics m = metrics;
+        if (positionIndex != null) {
+            if (m != null) m.indexedLookup();
+            return positionIndex.lastIndexOf(o);
+        }
+        long start = m == null ? 0 : System.nanoTime();
+        int found = -1;
         for (int i = size - 1; i >= 0; i--) {
-            if (o.equals(elements[i])) return i;
+            if (o.equals(elements[i])) {
+                found = i;
+                break;
+            }
         }
-        return -1;
+        if (m != null) m.scanned("lastIndexOf", size, size - Math.max(found, 0), start);
+        return found;
     }
 
     /**
@@ -377,123 +775,506 @@ public class CoffeeList implements List<Coffee> {
      */
     @Override
     public ListIterator<Coffee> listIterator() {
-        return new ListIterator<Coffee>() {
-            private int currentIndex = 0;
+        return new ListItr(0);
+    }
 
-            @Override
-            public boolean hasNext() {
-                return currentIndex < size;
-            }
+    /**
+     * Returns a list iterator over the elements in this list (in proper sequence),
+     * starting at the specified position in this list.
+     *
+     * @param index the index of the element to start the iterator at
+     * @return a ListIterator over the elements in this list starting at the specified index
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index > size)
+     */
+    @Override
+    public ListIterator<Coffee> listIterator(int index) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+        return new ListItr(index);
+    }
 
-            @Override
-            public Coffee next() {
-                if (!hasNext()) throw new NoSuchElementException();
-                return elements[currentIndex++];
-            }
+    /**
+     * Sorts this list in place according to the order induced by the specified comparator.
+     * The sort is stable. Listeners receive a replacement event for every position whose
+     * coffee changed, also when the comparator throws and leaves the list partly sorted.
+     *
+     * @param c the comparator used to compare the coffees
+     */
+    @Override
+    public void sort(Comparator<? super Coffee> c) {
+        Coffee[] before = listeners.length == 0 ? null : Arrays.copyOf(elements, size);
+        try {
+            Arrays.sort(elements, 0, size, c);
+        } finally {
+            reordered(before);
+        }
+    }
 
-            @Override
-            public boolean hasPrevious() {
-                return currentIndex > 0;
-            }
+    /**
+     * Sorts this list in place by ascending value of the specified attribute. The value of
+     * every coffee is read once, and the sort then compares primitive keys. The sort is
+     * stable.
+     *
+     * @param attribute the attribute to sort by
+     */
+    public void sortBy(CoffeeAttribute attribute) {
+        sortBy(attribute, false);
+    }
 
-            @Override
-            public Coffee previous() {
-                if (!hasPrevious()) throw new NoSuchElementException();
-                return elements[--currentIndex];
-            }
+    /**
+     * Sorts this list in place by ascending value of the specified attribute, like
+     * {@link #sortBy(CoffeeAttribute)}, splitting the work between several cores when
+     * the list is large.
+     *
+     * @param attribute the attribute to sort by
+     */
+    public void parallelSortBy(CoffeeAttribute attribute) {
+        sortBy(attribute, true);
+    }
 
-            @Override
-            public int nextIndex() {
-                return currentIndex;
-            }
+    private void sortBy(CoffeeAttribute attribute, boolean parallel) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        Coffee[] before = listeners.length == 0 ? null : Arrays.copyOf(elements, size);
+        try {
+            CoffeeKeySort.sort(elements, size, attribute, parallel);
+        } finally {
+            reordered(before);
+        }
+    }
 
-            @Override
-            public int previousIndex() {
-                return currentIndex - 1;
-            }
+    /**
+     * Records that the coffees were permuted in place.
+     *
+     * @param before the previous order, or null if there are no listeners to notify
+     */
+    private void reordered(Coffee[] before) {
+        modCount++;
+        if (before == null) return;
+        for (int i = 0; i < size; i++) {
+            if (before[i] != elements[i]) fireReplaced(i, before[i], elements[i]);
+        }
+    }
 
-            @Override
-            public void remove() {
-                if (currentIndex <= 0) throw new IllegalStateException();
-                CoffeeList.this.remove(--currentIndex);
+    /**
+     * Searches this list for a coffee with the specified value of an attribute using
+     * binary search. The list must be sorted by ascending value of the attribute, for
+     * example with {@link #sortBy(CoffeeAttribute)}; otherwise the result is undefined.
+     * Values are compared as by {@link Double#compare(double, double)}.
+     *
+     * @param attribute the attribute the list is sorted by
+     * @param key       the value to search for
+     * @return the index of a coffee with the value, if any; otherwise
+     *         {@code (-(insertion point) - 1)}, where the insertion point is the index
+     *         of the first coffee with a greater value, or the size of the list
+     */
+    public int binarySearch(CoffeeAttribute attribute, double key) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Double.compare(attribute.of(elements[mid]), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
             }
+        }
+        return -(low + 1);
+    }
 
-            @Override
-            public void set(Coffee e) {
-                if (currentIndex <= 0) throw new IllegalStateException();
-                CoffeeList.this.set(currentIndex - 1, e);
+    /**
+     * Returns the {@code k} smallest coffees of this list according to the specified
+     * comparator, in ascending order, without sorting the list. The selection keeps a
+     * heap of at most {@code k} coffees and runs in O(n log k). The relative order of
+     * coffees that compare equal is unspecified.
+     *
+     * @param comparator the comparator used to compare the coffees
+     * @param k          the maximum number of coffees to return
+     * @return a new list holding the {@code min(k, size())} smallest coffees
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public CoffeeList topK(Comparator<? super Coffee> comparator, int k) {
+        if (comparator == null) throw new NullPointerException("Comparator cannot be null.");
+        if (k < 0) throw new IllegalArgumentException("K cannot be negative.");
+        int limit = Math.min(k, size);
+        if (limit == 0) return new CoffeeList(0);
+        Comparator<? super Coffee> reversed = Collections.reverseOrder(comparator);
+        PriorityQueue<Coffee> largestFirst = new PriorityQueue<>(limit, reversed);
+        for (int i = 0; i < size; i++) {
+            Coffee coffee = elements[i];
+            if (largestFirst.size() < limit) {
+                largestFirst.add(coffee);
+            } else if (comparator.compare(coffee, largestFirst.peek()) < 0) {
+                largestFirst.poll();
+                largestFirst.add(coffee);
             }
+        }
+        Coffee[] selected = new Coffee[limit];
+        for (int i = limit - 1; i >= 0; i--) {
+            selected[i] = largestFirst.poll();
+        }
+        return new CoffeeList(Arrays.asList(selected));
+    }
 
-            @Override
-            public void add(Coffee e) {
-                CoffeeList.this.add(currentIndex++, e);
-            }
-        };
+    /**
+     * Sums the prices of all coffees in this list.
+     *
+     * @return the total price
+     */
+    public double sumPrice() {
+        return sum(CoffeeAttribute.PRICE);
     }
 
     /**
-     * Returns a list iterator over the elements in this list (in proper sequence),
-     * starting at the specified position in this list.
+     * Sums an attribute over all coffees in this list.
      *
-     * @param index the index of the element to start the iterator at
-     * @return a ListIterator over the elements in this list starting at the specified index
-     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index > size)
+     * @param attribute the attribute to sum
+     * @return the sum of the attribute, or 0 if the list is empty
      */
-    @Override
-    public ListIterator<Coffee> listIterator(int index) {
-        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
-        return new ListIterator<Coffee>() {
-            private int currentIndex = index;
+    public double sum(CoffeeAttribute attribute) {
+        return stats(attribute).getSum();
+    }
+
+    /**
+     * Computes the count, sum, minimum, maximum and mean of an attribute over all coffees
+     * in this list in a single pass, in parallel for large lists.
+     *
+     * @param attribute the attribute to aggregate
+     * @return the statistics of the attribute
+     */
+    public CoffeeStatistics stats(CoffeeAttribute attribute) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        return CoffeeStatistics.of(elements, 0, size, attribute);
+    }
 
-            @Override
-            public boolean hasNext() {
-                return currentIndex < size;
+    /**
+     * Computes quantiles of an attribute over all coffees in this list, interpolating
+     * linearly between the two closest values. The values are read once into a primitive
+     * array and sorted, in parallel for large lists; the list itself is not reordered.
+     *
+     * @param attribute     the attribute to compute the quantiles of
+     * @param probabilities the probabilities of the quantiles, each between 0 and 1,
+     *                      for example 0.5 for the median
+     * @return the quantiles, in the order of the probabilities, or NaN values if the list is empty
+     * @throws IllegalArgumentException if a probability is not between 0 and 1
+     */
+    public double[] quantiles(CoffeeAttribute attribute, double... probabilities) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        if (probabilities == null) throw new NullPointerException("Probabilities cannot be null.");
+        for (double p : probabilities) {
+            if (!(p >= 0 && p <= 1)) throw new IllegalArgumentException("Probabilities must be between 0 and 1.");
+        }
+        double[] quantiles = new double[probabilities.length];
+        if (size == 0) {
+            Arrays.fill(quantiles, Double.NaN);
+            return quantiles;
+        }
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = attribute.of(elements[i]);
+        }
+        if (size >= CoffeeStatistics.PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(values);
+        } else {
+            Arrays.sort(values);
+        }
+        for (int q = 0; q < probabilities.length; q++) {
+            double position = probabilities[q] * (size - 1);
+            int lower = (int) position;
+            int upper = Math.min(lower + 1, size - 1);
+            quantiles[q] = values[lower] + (position - lower) * (values[upper] - values[lower]);
+        }
+        return quantiles;
+    }
+
+    /**
+     * Computes the statistics of an attribute separately for every brand in this list.
+     *
+     * @param attribute the attribute to aggregate
+     * @return the statistics of each brand, keyed by brand
+     */
+    public Map<String, CoffeeStatistics> groupByBrand(CoffeeAttribute attribute) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        return CoffeeStatistics.byBrand(elements, 0, size, attribute);
+    }
+
+    /**
+     * Computes the statistics of an attribute separately for every kind of coffee in this
+     * list. Kinds without coffees in the list are absent from the result.
+     *
+     * @param attribute the attribute to aggregate
+     * @return the statistics of each kind, keyed by kind
+     */
+    public Map<CoffeeKind, CoffeeStatistics> groupByKind(CoffeeAttribute attribute) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        return CoffeeStatistics.byKind(elements, 0, size, attribute);
+    }
+
+    /**
+     * Applies a batch of edits to this list, with the same result as making them one after
+     * another with {@code add(int, Coffee)}, {@code remove(int)}, {@code set} and
+     * {@code clear}.
+     * <p>
+     * Instead of shifting the tail of the array once per edit, the edits are first
+     * resolved into runs of surviving elements and inserted coffees, which takes
+     * O(d log d) time for d edits, independent of the size of the list. The array is then
+     * rearranged in place with one copy per run. Listeners receive one event per edit, in
+     * order, after the array has been rearranged. If a position of the delta is out of
+     * range, the list is left unchanged.
+     * </p>
+     *
+     * @param delta the edits to apply
+     * @throws IndexOutOfBoundsException if an edit refers to a position out of range
+     */
+    public void applyDelta(CoffeeDelta delta) {
+        if (delta == null) throw new NullPointerException("Delta cannot be null.");
+        if (delta.isEmpty()) return;
+        DeltaPlan plan = new DeltaPlan(delta, size);
+        int newSize = plan.size;
+        ensureCapacityInternal(newSize);
+        modCount++;
+        List<DeltaPlan.Run> runs = plan.runs;
+        int[] targets = new int[runs.size()];
+        int target = 0;
+        for (int k = 0; k < targets.length; k++) {
+            targets[k] = target;
+            target += runs.get(k).ownLength();
+        }
+        // Runs of surviving elements keep their relative order, so moving the runs that
+        // shift left in ascending order and those that shift right in descending order
+        // never overwrites a run before it is moved.
+        for (int k = 0; k < targets.length; k++) {
+            DeltaPlan.Run run = runs.get(k);
+            if (run.inserted == null && targets[k] < run.from) {
+                System.arraycopy(elements, run.from, elements, targets[k], run.ownLength());
+            }
+        }
+        for (int k = targets.length - 1; k >= 0; k--) {
+            DeltaPlan.Run run = runs.get(k);
+            if (run.inserted == null && targets[k] > run.from) {
+                System.arraycopy(elements, run.from, elements, targets[k], run.ownLength());
+            }
+        }
+        for (int k = 0; k < targets.length; k++) {
+            Coffee inserted = runs.get(k).inserted;
+            if (inserted != null) elements[targets[k]] = inserted;
+        }
+        if (newSize < size) Arrays.fill(elements, newSize, size, null);
+        int running = size;
+        size = newSize;
+        int appended = 0;
+        int inserted = 0;
+        int removed = 0;
+        for (int i = 0; i < delta.size(); i++) {
+            switch (delta.op(i)) {
+                case CoffeeDelta.ADD:
+                    if (delta.index(i) == running) appended++;
+                    else inserted++;
+                    running++;
+                    break;
+                case CoffeeDelta.REMOVE:
+                    removed++;
+                    running--;
+                    break;
+                case CoffeeDelta.CLEAR:
+                    removed += running;
+                    running = 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+        CoffeeListMetrics m = metrics;
+        if (m != null) {
+            m.appended(appended);
+            m.inserted(inserted);
+            m.removed(removed);
+        }
+        for (int i = 0; i < delta.size(); i++) {
+            switch (delta.op(i)) {
+                case CoffeeDelta.ADD:
+                    fireAdded(delta.index(i), delta.coffee(i));
+                    break;
+                case CoffeeDelta.REMOVE:
+                    fireRemoved(delta.index(i), plan.previous[i]);
+                    break;
+                case CoffeeDelta.SET:
+                    fireReplaced(delta.index(i), plan.previous[i], delta.coffee(i));
+                    break;
+                default:
+                    fireCleared();
             }
+        }
+    }
+
+    /**
+     * Resolution of a delta against the current contents of the list into the sequence of
+     * runs that makes up the new contents: ranges of the current array that survive the
+     * edits, and single inserted coffees. While the edits are resolved, the runs are kept
+     * in a treap ordered by position, in which every node knows the number of elements of
+     * its subtree, so an edit finds and splits its run in O(log d) expected time for a
+     * delta of d edits. Resolving the delta never visits the elements, so it takes
+     * O(d log d) whatever the size of the list.
+     */
+    private final class DeltaPlan {
+        private final List<Run> runs = new ArrayList<>();
+        private final Coffee[] previous;
+        private int size;
+        private int seed = 0x2545F491;
+        private Run lower;
+        private Run upper;
 
-            @Override
-            public Coffee next() {
-                if (!hasNext()) throw new NoSuchElementException();
-                return elements[currentIndex++];
+        DeltaPlan(CoffeeDelta delta, int currentSize) {
+            previous = new Coffee[delta.size()];
+            size = currentSize;
+            Run root = currentSize > 0 ? new Run(0, currentSize, null) : null;
+            for (int i = 0; i < delta.size(); i++) {
+                int index = delta.index(i);
+                switch (delta.op(i)) {
+                    case CoffeeDelta.ADD:
+                        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+                        split(root, index);
+                        root = merge(merge(lower, new Run(0, 0, delta.coffee(i))), upper);
+                        size++;
+                        break;
+                    case CoffeeDelta.REMOVE:
+                        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+                        root = replace(root, index, null, i);
+                        size--;
+                        break;
+                    case CoffeeDelta.SET:
+                        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+                        root = replace(root, index, new Run(0, 0, delta.coffee(i)), i);
+                        break;
+                    default:
+                        root = null;
+                        size = 0;
+                }
             }
+            collect(root);
+        }
 
-            @Override
-            public boolean hasPrevious() {
-                return currentIndex > 0;
+        /**
+         * Removes the element at the specified position, records it as the previous value
+         * of the edit and puts the replacement, if any, in its place.
+         *
+         * @return the new root
+         */
+        private Run replace(Run root, int index, Run replacement, int edit) {
+            split(root, index);
+            Run before = lower;
+            split(upper, 1);
+            previous[edit] = lower.first();
+            return merge(merge(before, replacement), upper);
+        }
+
+        /**
+         * Splits a subtree into its first {@code k} elements, stored in {@link #lower}, and
+         * the remaining elements, stored in {@link #upper}. A range containing the split
+         * position is cut in two.
+         */
+        private void split(Run t, int k) {
+            if (t == null) {
+                lower = null;
+                upper = null;
+                return;
+            }
+            int leftLength = lengthOf(t.left);
+            if (k <= leftLength) {
+                split(t.left, k);
+                t.left = upper;
+                t.update();
+                upper = t;
+            } else if (k >= leftLength + t.ownLength()) {
+                split(t.right, k - leftLength - t.ownLength());
+                t.right = lower;
+                t.update();
+                lower = t;
+            } else {
+                int at = t.from + (k - leftLength);
+                Run tail = new Run(at, t.to, null);
+                Run right = t.right;
+                t.to = at;
+                t.right = null;
+                t.update();
+                lower = t;
+                upper = merge(tail, right);
             }
+        }
 
-            @Override
-            public Coffee previous() {
-                if (!hasPrevious()) throw new NoSuchElementException();
-                return elements[--currentIndex];
+        private Run merge(Run a, Run b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                a.update();
+                return a;
             }
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
 
-            @Override
-            public int nextIndex() {
-                return currentIndex;
+        /**
+         * Lists the runs of a subtree in position order.
+         */
+        private void collect(Run root) {
+            Deque<Run> path = new ArrayDeque<>();
+            for (Run t = root; t != null || !path.isEmpty(); t = t.right) {
+                while (t != null) {
+                    path.push(t);
+                    t = t.left;
+                }
+                t = path.pop();
+                runs.add(t);
             }
+        }
 
-            @Override
-            public int previousIndex() {
-                return currentIndex - 1;
+        private int lengthOf(Run t) {
+            return t == null ? 0 : t.length;
+        }
+
+        private int nextPriority() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            return seed;
+        }
+
+        /**
+         * Range {@code [from, to)} of the current array, or a single inserted coffee, as a
+         * node of the treap.
+         */
+        private final class Run {
+            private final int from;
+            private int to;
+            private final Coffee inserted;
+            private final int priority = nextPriority();
+            private Run left;
+            private Run right;
+            private int length;
+
+            Run(int from, int to, Coffee inserted) {
+                this.from = from;
+                this.to = to;
+                this.inserted = inserted;
+                this.length = ownLength();
             }
 
-            @Override
-            public void remove() {
-                if (currentIndex <= 0) throw new IllegalStateException();
-                CoffeeList.this.remove(--currentIndex);
+            int ownLength() {
+                return inserted == null ? to - from : 1;
             }
 
-            @Override
-            public void set(Coffee e) {
-                if (currentIndex <= 0) throw new IllegalStateException();
-                CoffeeList.this.set(currentIndex - 1, e);
+            void update() {
+                length = lengthOf(left) + ownLength() + lengthOf(right);
             }
 
-            @Override
-            public void add(Coffee e) {
-                CoffeeList.this.add(currentIndex++, e);
+            Coffee first() {
+                return inserted == null ? elements[from] : inserted;
             }
-        };
+        }
     }
 
     /**
@@ -513,11 +1294,300 @@ public class CoffeeList implements List<Coffee> {
         if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
             throw new IndexOutOfBoundsException();
         }
-        CoffeeList subList = new CoffeeList();
-        for (int i = fromIndex; i < toIndex; i++) {
-            subList.add(elements[i]);
+        return new SubList(null, fromIndex, toIndex);
+    }
+
+    /**
+     * Removes the elements from {@code fromIndex}, inclusive, to {@code toIndex},
+     * exclusive, with a single shift of the following elements.
+     */
+    private void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex) return;
+        modCount++;
+        Coffee[] removed = Arrays.copyOfRange(elements, fromIndex, toIndex);
+        System.arraycopy(elements, toIndex, elements, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        Arrays.fill(elements, newSize, size, null);
+        size = newSize;
+        CoffeeListMetrics m = metrics;
+        if (m != null) m.removed(removed.length);
+        for (Coffee coffee : removed) {
+            fireRemoved(fromIndex, coffee);
+        }
+    }
+
+    /**
+     * Array-backed spliterator over an index range of the list.
+     */
+    private final class CoffeeSpliterator implements Spliterator<Coffee> {
+        private int index;
+        private int fence;
+        private int expectedModCount;
+
+        /**
+         * Creates a spliterator over the range from {@code origin} to {@code fence}.
+         * A negative fence binds the spliterator to the size of the list on first use.
+         */
+        CoffeeSpliterator(int origin, int fence, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                fence = size;
+                expectedModCount = modCount;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<Coffee> trySplit() {
+            int hi = getFence();
+            int lo = index;
+            int mid = (lo + hi) >>> 1;
+            return lo >= mid ? null : new CoffeeSpliterator(lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Coffee> action) {
+            if (action == null) throw new NullPointerException("Action cannot be null.");
+            if (index >= getFence()) return false;
+            action.accept(elements[index++]);
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Coffee> action) {
+            if (action == null) throw new NullPointerException("Action cannot be null.");
+            Coffee[] snapshot = elements;
+            int hi = getFence();
+            for (int i = index; i < hi; i++) {
+                action.accept(snapshot[i]);
+            }
+            index = hi;
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Fail-fast iterator over the list. {@code cursor} is the index of the next element
+     * and {@code lastReturned} the index of the element returned by the last call to
+     * {@code next} or {@code previous}, or -1 if it was removed or none was returned yet.
+     */
+    private class Itr implements Iterator<Coffee> {
+        int cursor;
+        int lastReturned = -1;
+        int expectedModCount = modCount;
+
+        Itr(int cursor) {
+            this.cursor = cursor;
+        }
+
+        Itr() {
+            this(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public Coffee next() {
+            checkForComodification();
+            if (cursor >= size) throw new NoSuchElementException();
+            lastReturned = cursor++;
+            return elements[lastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) throw new IllegalStateException();
+            checkForComodification();
+            CoffeeList.this.remove(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Coffee> action) {
+            if (action == null) throw new NullPointerException("Action cannot be null.");
+            while (cursor < size && modCount == expectedModCount) {
+                lastReturned = cursor++;
+                action.accept(elements[lastReturned]);
+            }
+            checkForComodification();
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Fail-fast list iterator over the list.
+     */
+    private final class ListItr extends Itr implements ListIterator<Coffee> {
+
+        ListItr(int index) {
+            super(index);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public Coffee previous() {
+            checkForComodification();
+            if (cursor <= 0) throw new NoSuchElementException();
+            lastReturned = --cursor;
+            return elements[lastReturned];
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void set(Coffee e) {
+            if (lastReturned < 0) throw new IllegalStateException();
+            checkForComodification();
+            CoffeeList.this.set(lastReturned, e);
+        }
+
+        @Override
+        public void add(Coffee e) {
+            checkForComodification();
+            int i = cursor;
+            CoffeeList.this.add(i, e);
+            cursor = i + 1;
+            lastReturned = -1;
+            expectedModCount = modCount;
         }
-        return subList;
     }
 
+    /**
+     * Live view of an index range of the list. Reads go straight to the backing array and
+     * writes go through the methods of the list, so listeners and the position index see
+     * them. Structural changes made to the list other than through the view, or through
+     * one of its ancestors, make the view throw {@link ConcurrentModificationException}.
+     */
+    private final class SubList extends AbstractList<Coffee> implements RandomAccess {
+        private final SubList parent;
+        private final int offset;
+        private int size;
+
+        SubList(SubList parent, int fromIndex, int toIndex) {
+            this.parent = parent;
+            this.offset = (parent == null ? 0 : parent.offset) + fromIndex;
+            this.size = toIndex - fromIndex;
+            this.modCount = CoffeeList.this.modCount;
+        }
+
+        @Override
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        @Override
+        public Coffee get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+            checkForComodification();
+            return elements[offset + index];
+        }
+
+        @Override
+        public Coffee set(int index, Coffee element) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+            checkForComodification();
+            return CoffeeList.this.set(offset + index, element);
+        }
+
+        @Override
+        public void add(int index, Coffee element) {
+            if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+            checkForComodification();
+            CoffeeList.this.add(offset + index, element);
+            updateSize(1);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Coffee> c) {
+            return addAll(size, c);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends Coffee> c) {
+            if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+            checkForComodification();
+            int oldSize = CoffeeList.this.size;
+            CoffeeList.this.addAll(offset + index, c);
+            int added = CoffeeList.this.size - oldSize;
+            if (added == 0) return false;
+            updateSize(added);
+            return true;
+        }
+
+        @Override
+        public Coffee remove(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+            checkForComodification();
+            Coffee removed = CoffeeList.this.remove(offset + index);
+            updateSize(-1);
+            return removed;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            checkForComodification();
+            CoffeeList.this.removeRange(offset + fromIndex, offset + toIndex);
+            updateSize(fromIndex - toIndex);
+        }
+
+        @Override
+        public List<Coffee> subList(int fromIndex, int toIndex) {
+            if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException();
+            }
+            checkForComodification();
+            return new SubList(this, fromIndex, toIndex);
+        }
+
+        private void checkForComodification() {
+            if (CoffeeList.this.modCount != modCount) throw new ConcurrentModificationException();
+        }
+
+        /**
+         * Adjusts the size of this view and its ancestors after a structural change made through it.
+         */
+        private void updateSize(int delta) {
+            for (SubList view = this; view != null; view = view.parent) {
+                view.size += delta;
+                view.modCount = CoffeeList.this.modCount;
+            }
+        }
+    }
 }
@@ -0,0 +1,331 @@
+package com.example;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact, versioned binary format for lists of coffees.
+ * <p>
+ * A file starts with a header (magic number, format version and element count), followed
+ * by a dictionary of every distinct brand and subtype detail, and then by one column per
+ * attribute: the {@link CoffeeKind} tags as bytes, the brand and detail dictionary ids
+ * as ints, and the weight, price, quality and volume as doubles. Values are big-endian.
+ * </p>
+ * <p>
+ * Columns are transferred in bulk through {@link ByteBuffer} views, so neither the
+ * writer nor the reader boxes or parses individual fields. The reader sizes the
+ * resulting {@link CoffeeList} once from the header, and {@link #read(Path)} decodes
+ * straight from a memory-mapped file without copying it first.
+ * </p>
+ */
+public final class CoffeeListCodec {
+    /** Magic number opening every file, "COFL" in ASCII. */
+    static final int MAGIC = 0x434F464C;
+    /** Version of the format written by this class. */
+    static final int VERSION = 1;
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    /** Bytes stored per coffee: kind tag, brand and detail ids, and four doubles. */
+    private static final int BYTES_PER_COFFEE = 1 + 2 * Integer.BYTES + 4 * Double.BYTES;
+    private static final CoffeeAttribute[] STORED_COLUMNS = {
+        CoffeeAttribute.WEIGHT, CoffeeAttribute.PRICE, CoffeeAttribute.QUALITY, CoffeeAttribute.VOLUME
+    };
+
+    private CoffeeListCodec() {
+    }
+
+    /**
+     * Writes the specified coffees to a file, replacing its previous content.
+     *
+     * @param coffees the coffees to write
+     * @param file    the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Collection<? extends Coffee> coffees, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(coffees, channel);
+        }
+    }
+
+    /**
+     * Writes the specified coffees to a channel. The channel is not closed.
+     *
+     * @param coffees the coffees to write
+     * @param channel the channel to write to
+     * @throws IOException if the channel cannot be written
+     */
+    public static void write(Collection<? extends Coffee> coffees, WritableByteChannel channel) throws IOException {
+        if (coffees == null) throw new NullPointerException("Collection of coffees cannot be null.");
+        Coffee[] elements = coffees.toArray(new Coffee[0]);
+        int count = elements.length;
+        StringDictionary strings = new StringDictionary();
+        byte[] kinds = new byte[count];
+        int[] brands = new int[count];
+        int[] details = new int[count];
+        for (int i = 0; i < count; i++) {
+            CoffeeKind kind = CoffeeKind.of(elements[i]);
+            kinds[i] = kind.tag();
+            brands[i] = strings.idOf(elements[i].getBrand());
+            details[i] = strings.idOf(kind.detailOf(elements[i]));
+        }
+
+        Output out = new Output(channel);
+        out.require(3 * Integer.BYTES);
+        out.buffer.putInt(MAGIC).putInt(VERSION).putInt(count);
+        out.require(Integer.BYTES);
+        out.buffer.putInt(strings.size());
+        for (int id = 0; id < strings.size(); id++) {
+            out.writeString(strings.get(id));
+        }
+        out.writeBytes(kinds);
+        out.writeInts(brands);
+        out.writeInts(details);
+        double[] column = new double[count];
+        for (CoffeeAttribute attribute : STORED_COLUMNS) {
+            for (int i = 0; i < count; i++) {
+                column[i] = attribute.of(elements[i]);
+            }
+            out.writeDoubles(column);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a list of coffees from a file by mapping it into memory. Files larger than
+     * a single mapping can hold are streamed instead.
+     *
+     * @param file the file to read
+     * @return a new list holding the coffees of the file
+     * @throws IOException if the file cannot be read or is not in this format
+     */
+    public static CoffeeList read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) return read((ReadableByteChannel) channel);
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(new Input(mapped, null));
+        }
+    }
+
+    /**
+     * Reads a list of coffees from a channel. The channel is not closed.
+     *
+     * @param channel the channel to read from
+     * @return a new list holding the coffees read
+     * @throws IOException if the channel cannot be read or the data is not in this format
+     */
+    public static CoffeeList read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.flip();
+        return decode(new Input(buffer, channel));
+    }
+
+    private static CoffeeList decode(Input in) throws IOException {
+        in.require(3 * Integer.BYTES);
+        if (in.buffer.getInt() != MAGIC) throw new IOException("Not a coffee list file.");
+        int version = in.buffer.getInt();
+        if (version != VERSION) throw new IOException("Unsupported coffee list format version: " + version);
+        int count = in.buffer.getInt();
+        if (count < 0) throw new IOException("Corrupted coffee list: negative element count.");
+        in.ensureAvailable((long) count * BYTES_PER_COFFEE);
+        in.require(Integer.BYTES);
+        int stringCount = in.buffer.getInt();
+        if (stringCount < 0) throw new IOException("Corrupted coffee list: negative dictionary size.");
+        in.ensureAvailable((long) stringCount * Integer.BYTES);
+        String[] strings = new String[in.initialLength(stringCount)];
+        for (int id = 0; id < stringCount; id++) {
+            if (id == strings.length) strings = Arrays.copyOf(strings, (int) Math.min(stringCount, 2L * id));
+            strings[id] = in.readString();
+        }
+        byte[] kinds = in.readBytes(count);
+        int[] brands = in.readInts(count);
+        int[] details = in.readInts(count);
+        double[] weights = in.readDoubles(count);
+        double[] prices = in.readDoubles(count);
+        double[] qualities = in.readDoubles(count);
+        double[] volumes = in.readDoubles(count);
+
+        CoffeeList list = new CoffeeList(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                list.add(CoffeeKind.fromTag(kinds[i]).create(weights[i], prices[i], qualities[i],
+                        strings[brands[i]], volumes[i], strings[details[i]]));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted coffee list: " + e.getMessage(), e);
+        }
+        return list;
+    }
+
+    /**
+     * Buffered writer of primitive arrays to a channel.
+     */
+    private static final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void require(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            require(Integer.BYTES);
+            buffer.putInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeBytes(byte[] values) throws IOException {
+            for (int done = 0; done < values.length; ) {
+                if (!buffer.hasRemaining()) flush();
+                int n = Math.min(buffer.remaining(), values.length - done);
+                buffer.put(values, done, n);
+                done += n;
+            }
+        }
+
+        void writeInts(int[] values) throws IOException {
+            for (int done = 0; done < values.length; ) {
+                require(Integer.BYTES);
+                int n = Math.min(buffer.remaining() / Integer.BYTES, values.length - done);
+                buffer.asIntBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                done += n;
+            }
+        }
+
+        void writeDoubles(double[] values) throws IOException {
+            for (int done = 0; done < values.length; ) {
+                require(Double.BYTES);
+                int n = Math.min(buffer.remaining() / Double.BYTES, values.length - done);
+                buffer.asDoubleBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                done += n;
+            }
+        }
+    }
+
+    /**
+     * Reader of primitive arrays from a buffer, refilled from a channel when there is one.
+     * Sizes read from the data are checked against the bytes left before anything is
+     * allocated for them, and every array is then allocated once at its full length.
+     * When the length of a channel is unknown, arrays grow as their data arrives instead,
+     * so corrupt sizes fail with an {@link IOException}.
+     */
+    private static final class Input {
+        private final ByteBuffer buffer;
+        private final ReadableByteChannel channel;
+        private final boolean bounded;
+
+        Input(ByteBuffer buffer, ReadableByteChannel channel) {
+            this.buffer = buffer;
+            this.channel = channel;
+            this.bounded = channel == null || channel instanceof SeekableByteChannel;
+        }
+
+        void require(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            if (channel == null) throw new EOFException("Unexpected end of coffee list data.");
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of coffee list data.");
+                }
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Fails if the data is known to hold fewer than the specified number of bytes
+         * after the current position.
+         */
+        void ensureAvailable(long bytes) throws IOException {
+            long available;
+            if (channel == null) {
+                available = buffer.remaining();
+            } else if (channel instanceof SeekableByteChannel) {
+                SeekableByteChannel seekable = (SeekableByteChannel) channel;
+                available = buffer.remaining() + seekable.size() - seekable.position();
+            } else {
+                return;
+            }
+            if (bytes > available) throw new EOFException("Unexpected end of coffee list data.");
+        }
+
+        /**
+         * Returns the length of the array to start reading {@code count} values into:
+         * the whole count when {@link #ensureAvailable(long)} has checked it against the
+         * length of the data, otherwise a buffer's worth.
+         */
+        private int initialLength(int count) {
+            return bounded ? count : Math.min(count, BUFFER_BYTES);
+        }
+
+        String readString() throws IOException {
+            require(Integer.BYTES);
+            int length = buffer.getInt();
+            if (length < 0) throw new IOException("Corrupted coffee list: negative string length.");
+            ensureAvailable(length);
+            return new String(readBytes(length), StandardCharsets.UTF_8);
+        }
+
+        byte[] readBytes(int count) throws IOException {
+            byte[] values = new byte[initialLength(count)];
+            for (int done = 0; done < count; ) {
+                require(1);
+                if (done == values.length) values = Arrays.copyOf(values, (int) Math.min(count, 2L * done));
+                int n = Math.min(buffer.remaining(), values.length - done);
+                buffer.get(values, done, n);
+                done += n;
+            }
+            return values;
+        }
+
+        int[] readInts(int count) throws IOException {
+            int[] values = new int[initialLength(count)];
+            for (int done = 0; done < count; ) {
+                require(Integer.BYTES);
+                if (done == values.length) values = Arrays.copyOf(values, (int) Math.min(count, 2L * done));
+                int n = Math.min(buffer.remaining() / Integer.BYTES, values.length - done);
+                buffer.asIntBuffer().get(values, done, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                done += n;
+            }
+            return values;
+        }
+
+        double[] readDoubles(int count) throws IOException {
+            double[] values = new double[initialLength(count)];
+            for (int done = 0; done < count; ) {
+                require(Double.BYTES);
+                if (done == values.length) values = Arrays.copyOf(values, (int) Math.min(count, 2L * done));
+                int n = Math.min(buffer.remaining() / Double.BYTES, values.length - done);
+                buffer.asDoubleBuffer().get(values, done, n);
+                buffer.position(buffer.position() + n * Double.BYTES);
+                done += n;
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package com.example;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable mode for a {@link CoffeeList}: a write-ahead journal in a directory that
+ * survives restarts and crashes.
+ * <p>
+ * {@link #open(Path)} recovers the list from the directory and records every later edit
+ * of it. Edits are collected in memory as a {@link CoffeeDelta} and committed in groups:
+ * a background thread appends the edits made since the previous commit to the journal as
+ * one record, checksummed with CRC-32C, and forces the journal to disk once, every
+ * commit interval. An edit is therefore durable at most one interval after it is made,
+ * without an fsync per {@code add}; {@link #commit()} makes the edits made so far durable
+ * immediately.
+ * </p>
+ * <p>
+ * Once the journal has grown past the compaction threshold, it is compacted: a new
+ * journal file is started, and the previous snapshot replayed with the finished journal
+ * is written as a new snapshot in the {@link CoffeeListCodec} format, after which the
+ * older files are deleted. Compaction never reads the live list and runs on its own
+ * background thread, so it stops neither the writer nor the group commits. Recovery
+ * loads the latest snapshot and replays the journal written after it one record at a
+ * time, ignoring a record torn by a crash at the end of the journal.
+ * </p>
+ * <p>
+ * The list is not thread-safe, as usual; only committing and compaction happen on
+ * background threads. Edits made after the journal is closed are not recorded.
+ * </p>
+ * <p>
+ * If a commit fails, its edits are kept in memory and written again, together with the
+ * later ones, by the next commit; a failed compaction is retried after the next group
+ * commit. {@link #getFailure()} reports the error as soon as it happens, until a commit
+ * succeeds, while {@link #commit()}, {@link #checkpoint()} and {@link #close()} throw
+ * the errors of their own attempts. Edits are only lost if the journal is closed while
+ * commits still fail.
+ * </p>
+ */
+public final class CoffeeListJournal implements Closeable {
+    /** Default interval between two group commits, in milliseconds. */
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+    /** Default size of the journal, in bytes, above which it is compacted into a snapshot. */
+    public static final long DEFAULT_COMPACTION_BYTES = 64L << 20;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".cfl";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final CoffeeList list;
+    private final long compactionBytes;
+    private final CoffeeChangeLog pending = new CoffeeChangeLog();
+    private final Recorder recorder = new Recorder();
+    private final Object commitLock = new Object();
+    private final Object compactionLock = new Object();
+    private final ScheduledExecutorService committer;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private FileChannel journal;
+    private long sequence;
+    private long committedBytes;
+    private byte[] unwritten;
+    private volatile IOException failure;
+
+    private CoffeeListJournal(Path directory, long commitIntervalMillis, long compactionBytes) throws IOException {
+        this.directory = directory;
+        this.compactionBytes = compactionBytes;
+        Recovery recovery = recover(Long.MAX_VALUE);
+        this.list = recovery.list;
+        this.sequence = recovery.sequence;
+        this.committedBytes = recovery.validBytes;
+        this.journal = FileChannel.open(journalPath(sequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            journal.truncate(recovery.validBytes);
+            journal.position(recovery.validBytes);
+            deleteOlderThan(recovery.snapshot);
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+        list.addListener(recorder);
+        committer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "coffee-journal-committer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "coffee-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committer.scheduleWithFixedDelay(this::commitInBackground, commitIntervalMillis, commitIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal in the specified directory with the default commit interval and
+     * compaction threshold, creating the directory if needed.
+     *
+     * @param directory the directory holding the snapshots and journal files
+     * @return the open journal
+     * @throws IOException if the directory cannot be read or holds a corrupt journal
+     */
+    public static CoffeeListJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_COMPACTION_BYTES);
+    }
+
+    /**
+     * Opens the journal in the specified directory, creating the directory if needed.
+     *
+     * @param directory            the directory holding the snapshots and journal files
+     * @param commitIntervalMillis the interval between two group commits, in milliseconds
+     * @param compactionBytes      the size of the journal above which it is compacted
+     * @return the open journal
+     * @throws IllegalArgumentException if the interval or the threshold is not positive
+     * @throws IOException              if the directory cannot be read or holds a corrupt journal
+     */
+    public static CoffeeListJournal open(Path directory, long commitIntervalMillis, long compactionBytes)
+            throws IOException {
+        if (directory == null) throw new NullPointerException("Directory cannot be null.");
+        if (commitIntervalMillis <= 0) throw new IllegalArgumentException("Commit interval must be positive.");
+        if (compactionBytes <= 0) throw new IllegalArgumentException("Compaction threshold must be positive.");
+        Files.createDirectories(directory);
+        return new CoffeeListJournal(directory, commitIntervalMillis, compactionBytes);
+    }
+
+    /**
+     * Returns the recovered list whose edits this journal records.
+     *
+     * @return the durable list
+     */
+    public CoffeeList getList() {
+        return list;
+    }
+
+    /**
+     * Returns the error of the last failed commit or compaction. The edits of a failed
+     * commit are kept and written again by the next commit.
+     *
+     * @return the error, or null if no commit or compaction has failed since the last
+     *         successful commit
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Appends the edits made since the previous commit to the journal and forces them to
+     * disk before returning.
+     *
+     * @throws IOException if the journal cannot be written; the edits are then kept and
+     *                     written again by the next commit
+     */
+    public void commit() throws IOException {
+        synchronized (commitLock) {
+            if (journal == null) throw new IOException("Journal is closed.");
+            CoffeeDelta delta;
+            synchronized (pending) {
+                delta = pending.drain();
+            }
+            byte[] records = unwritten;
+            if (!delta.isEmpty()) {
+                byte[] record = encode(delta);
+                if (records == null) {
+                    records = record;
+                } else {
+                    records = Arrays.copyOf(records, records.length + record.length);
+                    System.arraycopy(record, 0, records, unwritten.length, record.length);
+                }
+            }
+            if (records == null) return;
+            try {
+                if (unwritten != null) {
+                    // The failed commit may have left part of its records behind.
+                    journal.truncate(committedBytes);
+                    journal.position(committedBytes);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(records);
+                while (buffer.hasRemaining()) journal.write(buffer);
+                journal.force(true);
+            } catch (IOException e) {
+                unwritten = records;
+                failure = e;
+                throw e;
+            }
+            committedBytes += records.length;
+            unwritten = null;
+            failure = null;
+        }
+    }
+
+    /**
+     * Commits the pending edits and compacts the journal into a new snapshot now,
+     * regardless of its size.
+     *
+     * @throws IOException if the journal or the snapshot cannot be written
+     */
+    public void checkpoint() throws IOException {
+        commit();
+        compact();
+    }
+
+    /**
+     * Stops recording edits, commits the edits made so far and closes the journal.
+     * Closing a closed journal has no effect.
+     *
+     * @throws IOException if the last edits cannot be committed; they are then lost
+     */
+    @Override
+    public void close() throws IOException {
+        list.removeListener(recorder);
+        committer.shutdown();
+        compactor.shutdown();
+        try {
+            committer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (commitLock) {
+            if (journal == null) return;
+            try {
+                commit();
+            } finally {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    private void commitInBackground() {
+        try {
+            commit();
+            boolean full;
+            synchronized (commitLock) {
+                full = journal != null && journal.size() >= compactionBytes;
+            }
+            if (full && compactionQueued.compareAndSet(false, true)) {
+                compactor.execute(this::compactInBackground);
+            }
+        } catch (IOException e) {
+            // Reported by getFailure(); the next commit retries.
+        } catch (RejectedExecutionException e) {
+            // The journal is being closed.
+            compactionQueued.set(false);
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (IOException e) {
+            // Reported by getFailure(); the compaction is queued again by the next commit.
+        } finally {
+            compactionQueued.set(false);
+        }
+    }
+
+    /**
+     * Starts a new journal file and writes the snapshot the finished one leads to.
+     */
+    private void compact() throws IOException {
+        synchronized (compactionLock) {
+            long finished;
+            synchronized (commitLock) {
+                if (journal == null) throw new IOException("Journal is closed.");
+                finished = sequence;
+                try {
+                    // Only the last journal file may end in a torn record, so the remains of a
+                    // failed commit are cut off; its records are written to the next file.
+                    if (unwritten != null) journal.truncate(committedBytes);
+                    FileChannel next = FileChannel.open(journalPath(finished + 1), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    FileChannel previous = journal;
+                    journal = next;
+                    sequence = finished + 1;
+                    committedBytes = 0;
+                    previous.close();
+                    syncDirectory();
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+            }
+            try {
+                Recovery recovery = recover(finished);
+                Path temporary = directory.resolve(SNAPSHOT_PREFIX + (finished + 1) + TEMPORARY_SUFFIX);
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    CoffeeListCodec.write(recovery.list, channel);
+                    channel.force(true);
+                }
+                Files.move(temporary, snapshotPath(finished + 1), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                // The rename must be durable before the files it supersedes are deleted.
+                syncDirectory();
+                deleteOlderThan(finished + 1);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the list from the latest snapshot and the journal files written after it,
+     * up to the journal file with the specified sequence number.
+     */
+    private Recovery recover(long upTo) throws IOException {
+        long snapshot = -1;
+        for (long s : sequences(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (s <= upTo) snapshot = Math.max(snapshot, s);
+        }
+        CoffeeList recovered = snapshot < 0 ? new CoffeeList() : CoffeeListCodec.read(snapshotPath(snapshot));
+        long first = Math.max(snapshot, 0);
+        long last = first;
+        long validBytes = 0;
+        boolean replayed = false;
+        for (long s : sequences(JOURNAL_PREFIX, JOURNAL_SUFFIX)) {
+            if (s < first || s > upTo) continue;
+            // Only the journal being written when the process stopped may end in a torn record.
+            if (replayed && validBytes < Files.size(journalPath(last))) {
+                throw new IOException("Journal is corrupt: " + journalPath(last));
+            }
+            replayed = true;
+            last = s;
+            validBytes = replay(journalPath(s), recovered);
+        }
+        return new Recovery(recovered, first, last, validBytes);
+    }
+
+    /**
+     * Applies the records of a journal file to a list, stopping at the first record that
+     * is incomplete or fails its checksum. The records are read one at a time, so a
+     * journal larger than the heap can still be recovered.
+     *
+     * @return the length of the valid prefix of the file
+     */
+    private static long replay(Path file, CoffeeList target) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            CRC32C crc = new CRC32C();
+            while (end - position >= RECORD_HEADER_BYTES) {
+                header.clear();
+                readFully(channel, header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                long body = position + RECORD_HEADER_BYTES;
+                if (length < 0 || length > end - body) return position;
+                ByteBuffer record = ByteBuffer.allocate(length);
+                readFully(channel, record, body);
+                crc.reset();
+                crc.update(record.array(), 0, length);
+                if ((int) crc.getValue() != checksum) return position;
+                try {
+                    CoffeeDelta delta = CoffeeDelta.readFrom(
+                            new DataInputStream(new ByteArrayInputStream(record.array(), 0, length)));
+                    if (!appendAll(target, delta)) target.applyDelta(delta);
+                } catch (IndexOutOfBoundsException e) {
+                    throw new IOException("Journal does not match its snapshot: " + file, e);
+                }
+                position = body + length;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Fills the buffer from the channel, starting at the specified position of the file.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Journal ended while reading a record.");
+            }
+        }
+    }
+
+    /**
+     * Appends the coffees of a delta made only of appends, such as a bulk load, without
+     * resolving its edits one by one.
+     *
+     * @return true if the delta was applied, false if it holds other edits
+     */
+    private static boolean appendAll(CoffeeList target, CoffeeDelta delta) {
+        int size = target.size();
+        for (int i = 0; i < delta.size(); i++) {
+            if (delta.op(i) != CoffeeDelta.ADD || delta.index(i) != size + i) return false;
+        }
+        target.ensureCapacity(size + delta.size());
+        for (int i = 0; i < delta.size(); i++) target.add(delta.coffee(i));
+        return true;
+    }
+
+    /**
+     * Forces the entries of the directory to disk, so that files created, renamed or
+     * deleted in it survive a power loss. Platforms that cannot open a directory, such as
+     * Windows, skip this step.
+     */
+    private void syncDirectory() throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    private static byte[] encode(CoffeeDelta delta) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(0);
+        delta.writeTo(out);
+        out.flush();
+        byte[] record = bytes.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(record, RECORD_HEADER_BYTES, record.length - RECORD_HEADER_BYTES);
+        ByteBuffer.wrap(record).putInt(record.length - RECORD_HEADER_BYTES).putInt((int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Deletes the snapshots, journal files and unfinished snapshots superseded by the
+     * snapshot with the specified sequence number.
+     */
+    private void deleteOlderThan(long snapshot) throws IOException {
+        for (long s : sequences(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (s < snapshot) Files.deleteIfExists(snapshotPath(s));
+        }
+        for (long s : sequences(JOURNAL_PREFIX, JOURNAL_SUFFIX)) {
+            if (s < snapshot) Files.deleteIfExists(journalPath(s));
+        }
+        for (long s : sequences(SNAPSHOT_PREFIX, TEMPORARY_SUFFIX)) {
+            if (s <= snapshot) Files.deleteIfExists(directory.resolve(SNAPSHOT_PREFIX + s + TEMPORARY_SUFFIX));
+        }
+    }
+
+    private long[] sequences(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long[] found = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> name.substring(prefix.length(), name.length() - suffix.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .mapToLong(Long::parseLong)
+                    .toArray();
+            Arrays.sort(found);
+            return found;
+        }
+    }
+
+    private Path snapshotPath(long snapshot) {
+        return directory.resolve(SNAPSHOT_PREFIX + snapshot + SNAPSHOT_SUFFIX);
+    }
+
+    private Path journalPath(long journalSequence) {
+        return directory.resolve(JOURNAL_PREFIX + journalSequence + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Result of replaying the snapshot and journal files of the directory.
+     */
+    private static final class Recovery {
+        private final CoffeeList list;
+        private final long snapshot;
+        private final long sequence;
+        private final long validBytes;
+
+        Recovery(CoffeeList list, long snapshot, long sequence, long validBytes) {
+            this.list = list;
+            this.snapshot = snapshot;
+            this.sequence = sequence;
+            this.validBytes = validBytes;
+        }
+    }
+
+    /**
+     * Collects the edits of the list on the thread making them, for the next commit. Once
+     * the journal has failed, edits are no longer collected.
+     */
+    private final class Recorder implements CoffeeListListener {
+        @Override
+        public void added(int index, Coffee coffee) {
+            synchronized (pending) {
+                pending.added(index, coffee);
+            }
+        }
+
+        @Override
+        public void removed(int index, Coffee coffee) {
+            synchronized (pending) {
+                pending.removed(index, coffee);
+            }
+        }
+
+        @Override
+        public void replaced(int index, Coffee oldValue, Coffee replacement) {
+            synchronized (pending) {
+                pending.replaced(index, oldValue, replacement);
+            }
+        }
+
+        @Override
+        public void cleared() {
+            synchronized (pending) {
+                pending.cleared();
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example;
+/**
+ * Receives the changes made to a {@link CoffeeList}, one element at a time.
+ * <p>
+ * Events describe the edits in the order they logically happen: replaying them one after
+ * another on a copy of the list yields the new contents of the list. Bulk operations
+ * report one event per affected element. Events may be delivered while a bulk operation
+ * is still rearranging the internal array, so listeners must not read the list from
+ * within a callback.
+ * </p>
+ */
+interface CoffeeListListener {
+
+    /**
+     * Called after a coffee has been inserted at the specified position.
+     *
+     * @param index  the position of the inserted coffee
+     * @param coffee the inserted coffee
+     */
+    void added(int index, Coffee coffee);
+
+    /**
+     * Called after the coffee at the specified position has been removed.
+     *
+     * @param index  the position the coffee was removed from
+     * @param coffee the removed coffee
+     */
+    void removed(int index, Coffee coffee);
+
+    /**
+     * Called after the coffee at the specified position has been replaced.
+     *
+     * @param index       the position of the replaced coffee
+     * @param oldValue    the coffee previously at that position
+     * @param replacement the coffee now at that position
+     */
+    void replaced(int index, Coffee oldValue, Coffee replacement);
+
+    /**
+     * Called after all coffees have been removed from the list.
+     */
+    void cleared();
+}
@@ -0,0 +1,249 @@
+package com.example;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Operation counters and latency histograms of one or more {@link CoffeeList}s.
+ * <p>
+ * Metrics are opt-in: a list records nothing until an instance is attached with
+ * {@link CoffeeList#setMetrics(CoffeeListMetrics)}, and a list without metrics only pays
+ * a null check on its instrumented paths. An instance may be shared by several lists
+ * and threads; counters are {@link LongAdder}s and latencies go to
+ * {@link LatencyHistogram}s, so recording does not allocate or lock.
+ * </p>
+ * <p>
+ * Every reallocation of the internal array emits a {@code com.example.CoffeeListResize}
+ * flight recorder event, and every linear lookup slower than
+ * {@link #getLongScanThresholdNanos()} a {@code com.example.CoffeeListScan} event,
+ * when a flight recording with these events enabled is running. The metrics can be
+ * published over JMX with {@link #register(String)}.
+ * </p>
+ */
+public class CoffeeListMetrics implements CoffeeListMetricsMBean {
+    /** Default duration above which a linear lookup emits a flight recorder event: one millisecond. */
+    public static final long DEFAULT_LONG_SCAN_THRESHOLD_NANOS = 1_000_000;
+
+    private static final int REFERENCE_BYTES = referenceBytes();
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder scannedElements = new LongAdder();
+    private final LongAdder shiftedElements = new LongAdder();
+    private final LongAdder resizes = new LongAdder();
+    private final LongAdder copiedElements = new LongAdder();
+    private final LatencyHistogram scanLatency = new LatencyHistogram();
+    private final LatencyHistogram insertLatency = new LatencyHistogram();
+    private final LatencyHistogram removeLatency = new LatencyHistogram();
+    private volatile long longScanThresholdNanos = DEFAULT_LONG_SCAN_THRESHOLD_NANOS;
+
+    /**
+     * Registers these metrics with the platform MBean server under the name
+     * {@code com.example:type=CoffeeList,name=<name>}.
+     *
+     * @param name the name distinguishing these metrics from others
+     * @return the object name the metrics were registered under
+     * @throws JMException if the name is invalid or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        if (name == null) throw new NullPointerException("Name cannot be null.");
+        ObjectName objectName = new ObjectName("com.example:type=CoffeeList,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public long getAppends() {
+        return appends.sum();
+    }
+
+    @Override
+    public long getInserts() {
+        return inserts.sum();
+    }
+
+    @Override
+    public long getRemovals() {
+        return removals.sum();
+    }
+
+    @Override
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    @Override
+    public long getScannedElements() {
+        return scannedElements.sum();
+    }
+
+    @Override
+    public long getShiftedElements() {
+        return shiftedElements.sum();
+    }
+
+    @Override
+    public long getResizes() {
+        return resizes.sum();
+    }
+
+    @Override
+    public long getCopiedBytes() {
+        return (copiedElements.sum() + shiftedElements.sum()) * REFERENCE_BYTES;
+    }
+
+    @Override
+    public long getScanLatencyP50Nanos() {
+        return scanLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getScanLatencyP99Nanos() {
+        return scanLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getScanLatencyMaxNanos() {
+        return scanLatency.getMax();
+    }
+
+    @Override
+    public long getInsertLatencyP99Nanos() {
+        return insertLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getRemoveLatencyP99Nanos() {
+        return removeLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLongScanThresholdNanos() {
+        return longScanThresholdNanos;
+    }
+
+    @Override
+    public void setLongScanThresholdNanos(long nanos) {
+        if (nanos < 0) throw new IllegalArgumentException("Threshold cannot be negative.");
+        longScanThresholdNanos = nanos;
+    }
+
+    /**
+     * Returns the histogram of the durations of linear lookups.
+     *
+     * @return the scan latency histogram
+     */
+    public LatencyHistogram getScanLatency() {
+        return scanLatency;
+    }
+
+    /**
+     * Returns the histogram of the durations of insertions before the end of a list.
+     *
+     * @return the insert latency histogram
+     */
+    public LatencyHistogram getInsertLatency() {
+        return insertLatency;
+    }
+
+    /**
+     * Returns the histogram of the durations of removals by index.
+     *
+     * @return the remove latency histogram
+     */
+    public LatencyHistogram getRemoveLatency() {
+        return removeLatency;
+    }
+
+    @Override
+    public void reset() {
+        appends.reset();
+        inserts.reset();
+        removals.reset();
+        lookups.reset();
+        scannedElements.reset();
+        shiftedElements.reset();
+        resizes.reset();
+        copiedElements.reset();
+        scanLatency.reset();
+        insertLatency.reset();
+        removeLatency.reset();
+    }
+
+    void appended(int count) {
+        appends.add(count);
+    }
+
+    void inserted(int count, int shifted, long startNanos) {
+        inserts.add(count);
+        shiftedElements.add(shifted);
+        insertLatency.record(System.nanoTime() - startNanos);
+    }
+
+    void inserted(int count) {
+        inserts.add(count);
+    }
+
+    void removed(int count, int shifted, long startNanos) {
+        removals.add(count);
+        shiftedElements.add(shifted);
+        removeLatency.record(System.nanoTime() - startNanos);
+    }
+
+    void removed(int count) {
+        removals.add(count);
+    }
+
+    void indexedLookup() {
+        lookups.increment();
+    }
+
+    void scanned(String operation, int listSize, int scanned, long startNanos) {
+        long duration = System.nanoTime() - startNanos;
+        lookups.increment();
+        scannedElements.add(scanned);
+        scanLatency.record(duration);
+        if (duration >= longScanThresholdNanos) {
+            CoffeeListScanEvent event = new CoffeeListScanEvent();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.listSize = listSize;
+                event.scannedElements = scanned;
+                event.durationNanos = duration;
+                event.commit();
+            }
+        }
+    }
+
+    void resized(int oldCapacity, int newCapacity, int copied) {
+        resizes.increment();
+        copiedElements.add(copied);
+        CoffeeListResizeEvent event = new CoffeeListResizeEvent();
+        if (event.shouldCommit()) {
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = newCapacity;
+            event.copiedElements = copied;
+            event.copiedBytes = (long) copied * REFERENCE_BYTES;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the size of an object reference in the running JVM: 4 bytes with
+     * compressed references, 8 bytes otherwise or if it cannot be determined.
+     */
+    private static int referenceBytes() {
+        try {
+            HotSpotDiagnosticMXBean diagnostics = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return "true".equals(diagnostics.getVMOption("UseCompressedOops").getValue()) ? 4 : 8;
+        } catch (RuntimeException | LinkageError e) {
+            return 8;
+        }
+    }
+}
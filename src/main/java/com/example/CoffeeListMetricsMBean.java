@@ -0,0 +1,116 @@
+package com.example;
+/**
+ * Management interface of {@link CoffeeListMetrics}, exposed over JMX.
+ */
+public interface CoffeeListMetricsMBean {
+
+    /**
+     * Returns the number of coffees appended at the end of a list.
+     *
+     * @return the number of appended coffees
+     */
+    long getAppends();
+
+    /**
+     * Returns the number of coffees inserted before the end of a list.
+     *
+     * @return the number of inserted coffees
+     */
+    long getInserts();
+
+    /**
+     * Returns the number of coffees removed from a list.
+     *
+     * @return the number of removed coffees
+     */
+    long getRemovals();
+
+    /**
+     * Returns the number of lookups by object.
+     *
+     * @return the number of lookups
+     */
+    long getLookups();
+
+    /**
+     * Returns the number of elements compared by linear lookups.
+     *
+     * @return the number of compared elements
+     */
+    long getScannedElements();
+
+    /**
+     * Returns the number of elements moved to open or close a gap.
+     *
+     * @return the number of moved elements
+     */
+    long getShiftedElements();
+
+    /**
+     * Returns the number of reallocations of the internal array.
+     *
+     * @return the number of reallocations
+     */
+    long getResizes();
+
+    /**
+     * Returns the estimated number of bytes copied by reallocations and shifts.
+     *
+     * @return the estimated number of copied bytes
+     */
+    long getCopiedBytes();
+
+    /**
+     * Returns the median duration of linear lookups.
+     *
+     * @return the median duration, in nanoseconds
+     */
+    long getScanLatencyP50Nanos();
+
+    /**
+     * Returns the 99th percentile of the duration of linear lookups.
+     *
+     * @return the 99th percentile, in nanoseconds
+     */
+    long getScanLatencyP99Nanos();
+
+    /**
+     * Returns the duration of the longest linear lookup.
+     *
+     * @return the longest duration, in nanoseconds
+     */
+    long getScanLatencyMaxNanos();
+
+    /**
+     * Returns the 99th percentile of the duration of insertions.
+     *
+     * @return the 99th percentile, in nanoseconds
+     */
+    long getInsertLatencyP99Nanos();
+
+    /**
+     * Returns the 99th percentile of the duration of removals by index.
+     *
+     * @return the 99th percentile, in nanoseconds
+     */
+    long getRemoveLatencyP99Nanos();
+
+    /**
+     * Returns the duration above which a linear lookup emits a flight recorder event.
+     *
+     * @return the threshold, in nanoseconds
+     */
+    long getLongScanThresholdNanos();
+
+    /**
+     * Sets the duration above which a linear lookup emits a flight recorder event.
+     *
+     * @param nanos the threshold, in nanoseconds
+     */
+    void setLongScanThresholdNanos(long nanos);
+
+    /**
+     * Resets every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,29 @@
+package com.example;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event emitted when an instrumented {@link CoffeeList} reallocates its internal array.
+ */
+@Name("com.example.CoffeeListResize")
+@Label("Coffee List Resize")
+@Category("Coffee")
+@Description("Reallocation of the internal array of a CoffeeList")
+final class CoffeeListResizeEvent extends Event {
+    @Label("Old Capacity")
+    int oldCapacity;
+
+    @Label("New Capacity")
+    int newCapacity;
+
+    @Label("Copied Elements")
+    int copiedElements;
+
+    @Label("Copied Bytes")
+    @DataAmount
+    long copiedBytes;
+}
@@ -0,0 +1,30 @@
+package com.example;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event emitted when a linear scan of an instrumented {@link CoffeeList}
+ * takes longer than the threshold of its {@link CoffeeListMetrics}.
+ */
+@Name("com.example.CoffeeListScan")
+@Label("Coffee List Long Scan")
+@Category("Coffee")
+@Description("Linear lookup in a CoffeeList that exceeded the long scan threshold")
+final class CoffeeListScanEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("List Size")
+    int listSize;
+
+    @Label("Scanned Elements")
+    int scannedElements;
+
+    @Label("Scan Duration")
+    @Timespan
+    long durationNanos;
+}
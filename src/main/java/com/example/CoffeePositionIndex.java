@@ -0,0 +1,197 @@
+package com.example;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash index mapping every coffee of a {@link CoffeeList} to the positions it occupies,
+ * which makes {@code contains}, {@code indexOf} and {@code lastIndexOf} O(1) on average.
+ * <p>
+ * Appending, removing the last element, replacing and clearing update the index in place.
+ * Insertions and removals elsewhere shift the positions of every following element;
+ * instead of rewriting them all, the index appends the shift to a log, and the positions
+ * of a coffee catch up with the log when that coffee is next looked up or edited. Once
+ * the log holds more than about the square root of the list size in shifts, for example
+ * after a bulk removal, the index is marked stale and rebuilt on the next lookup, so
+ * keeping it in sync costs O(sqrt n) amortized per shifting edit.
+ * Coffees are matched with {@code equals} and {@code hashCode}, like the linear scans
+ * of the list.
+ * </p>
+ */
+final class CoffeePositionIndex implements CoffeeListListener {
+    private final CoffeeList list;
+    private final Map<Coffee, Positions> positions = new HashMap<>();
+    private int indexedSize;
+    private boolean stale = true;
+    private int[] shiftAt = new int[16];
+    private int[] shiftBy = new int[16];
+    private int shifts;
+
+    /**
+     * Creates an index over the specified list. The index is built on the first lookup.
+     *
+     * @param list the indexed list
+     */
+    CoffeePositionIndex(CoffeeList list) {
+        this.list = list;
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified object.
+     *
+     * @param o the object to look up
+     * @return the lowest position of the object, or -1 if the list does not contain it
+     */
+    int firstIndexOf(Object o) {
+        Positions at = lookup(o);
+        return at == null ? -1 : at.first();
+    }
+
+    /**
+     * Returns the position of the last occurrence of the specified object.
+     *
+     * @param o the object to look up
+     * @return the highest position of the object, or -1 if the list does not contain it
+     */
+    int lastIndexOf(Object o) {
+        Positions at = lookup(o);
+        return at == null ? -1 : at.last();
+    }
+
+    private Positions lookup(Object o) {
+        if (stale) rebuild();
+        Positions at = positions.get(o);
+        if (at != null) at.catchUp();
+        return at;
+    }
+
+    private void rebuild() {
+        positions.clear();
+        indexedSize = 0;
+        shifts = 0;
+        for (Coffee coffee : list) {
+            positions.computeIfAbsent(coffee, c -> new Positions()).append(indexedSize++);
+        }
+        stale = false;
+    }
+
+    @Override
+    public void added(int index, Coffee coffee) {
+        if (stale) return;
+        if (index != indexedSize) {
+            if (!logShift(index, 1)) return;
+        }
+        Positions at = positions.computeIfAbsent(coffee, c -> new Positions());
+        at.catchUp();
+        at.insert(index);
+        indexedSize++;
+    }
+
+    @Override
+    public void removed(int index, Coffee coffee) {
+        if (stale) return;
+        Positions at = positions.get(coffee);
+        at.catchUp();
+        at.remove(index);
+        if (at.isEmpty()) positions.remove(coffee);
+        indexedSize--;
+        if (index != indexedSize) logShift(index, -1);
+    }
+
+    @Override
+    public void replaced(int index, Coffee oldValue, Coffee replacement) {
+        if (stale) return;
+        Positions at = positions.get(oldValue);
+        at.catchUp();
+        at.remove(index);
+        if (at.isEmpty()) positions.remove(oldValue);
+        at = positions.computeIfAbsent(replacement, c -> new Positions());
+        at.catchUp();
+        at.insert(index);
+    }
+
+    @Override
+    public void cleared() {
+        positions.clear();
+        indexedSize = 0;
+        shifts = 0;
+        stale = false;
+    }
+
+    /**
+     * Records that the positions from {@code index} on moved by {@code delta}: up by one
+     * after an insertion at the index, down by one after a removal there. If the log is
+     * full, marks the index stale instead.
+     *
+     * @return false if the index became stale
+     */
+    private boolean logShift(int index, int delta) {
+        if (shifts >= 64 + (int) Math.sqrt(indexedSize)) {
+            stale = true;
+            positions.clear();
+            return false;
+        }
+        if (shifts == shiftAt.length) {
+            shiftAt = Arrays.copyOf(shiftAt, shifts * 2);
+            shiftBy = Arrays.copyOf(shiftBy, shifts * 2);
+        }
+        shiftAt[shifts] = index;
+        shiftBy[shifts] = delta;
+        shifts++;
+        return true;
+    }
+
+    /**
+     * Sorted set of the positions held by one coffee, valid as of the first {@code epoch}
+     * shifts of the log.
+     */
+    private final class Positions {
+        private int[] at = new int[1];
+        private int count;
+        private int epoch = shifts;
+
+        /**
+         * Applies the shifts logged since the positions were last updated. Shifts never
+         * reorder the remaining elements, so the positions stay sorted.
+         */
+        void catchUp() {
+            for (; epoch < shifts; epoch++) {
+                int from = shiftAt[epoch];
+                int delta = shiftBy[epoch];
+                // An insertion moves the element at its position, a removal only the elements after it.
+                int threshold = delta > 0 ? from : from + 1;
+                for (int slot = count - 1; slot >= 0 && at[slot] >= threshold; slot--) at[slot] += delta;
+            }
+        }
+
+        int first() {
+            return at[0];
+        }
+
+        int last() {
+            return at[count - 1];
+        }
+
+        boolean isEmpty() {
+            return count == 0;
+        }
+
+        void append(int index) {
+            if (count == at.length) at = Arrays.copyOf(at, count * 2);
+            at[count++] = index;
+        }
+
+        void insert(int index) {
+            int slot = -Arrays.binarySearch(at, 0, count, index) - 1;
+            append(index);
+            System.arraycopy(at, slot, at, slot + 1, count - 1 - slot);
+            at[slot] = index;
+        }
+
+        void remove(int index) {
+            int slot = Arrays.binarySearch(at, 0, count, index);
+            System.arraycopy(at, slot + 1, at, slot, count - 1 - slot);
+            count--;
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Conjunctive query over coffees, for example all ground coffees of a few brands with a
+ * fine grind and a quality of at least 7:
+ * <pre>{@code
+ * CoffeeQuery query = CoffeeQuery.all()
+ *         .atLeast(CoffeeAttribute.QUALITY, 7)
+ *         .brandIn("Lavazza", "Nescafe")
+ *         .grindSize("Fine");
+ * query.stream(coffees).forEach(System.out::println);
+ * }</pre>
+ * <p>
+ * Queries are immutable; every condition method returns a new query. Conditions on the
+ * same attribute are merged when they are added, so two ranges on the price become a
+ * single range check. When the query runs, its conditions are ordered so that the ones
+ * most likely to reject a coffee, as estimated on a sample of the input, are tested
+ * first. Results are produced lazily through a {@link Spliterator} over the input,
+ * without building intermediate lists, and keep the order of the input.
+ * </p>
+ * <p>
+ * Run against an {@link IndexedCoffeeView}, the query asks the indexes of the view how
+ * many coffees each condition matches, fetches the candidates of the most selective
+ * indexed condition and tests the remaining conditions on them only. The order of these
+ * results is unspecified.
+ * </p>
+ */
+public final class CoffeeQuery {
+    private static final CoffeeQuery ALL = new CoffeeQuery(Collections.emptyList());
+    private static final int SAMPLE_SIZE = 128;
+
+    private final List<Condition> conditions;
+
+    private CoffeeQuery(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Returns the query matching every coffee, to which conditions can be added.
+     *
+     * @return the query without conditions
+     */
+    public static CoffeeQuery all() {
+        return ALL;
+    }
+
+    /**
+     * Returns a query that also requires the attribute to lie within a range, bounds included.
+     *
+     * @param attribute the attribute to check
+     * @param from      the lowest accepted value
+     * @param to        the highest accepted value
+     * @return the narrowed query
+     */
+    public CoffeeQuery between(CoffeeAttribute attribute, double from, double to) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        for (int i = 0; i < conditions.size(); i++) {
+            Condition condition = conditions.get(i);
+            if (condition instanceof Range && ((Range) condition).attribute == attribute) {
+                Range range = (Range) condition;
+                return replace(i, new Range(attribute, Math.max(range.from, from), Math.min(range.to, to)));
+            }
+        }
+        return with(new Range(attribute, from, to));
+    }
+
+    /**
+     * Returns a query that also requires the attribute to be at least the specified value.
+     *
+     * @param attribute the attribute to check
+     * @param min       the lowest accepted value
+     * @return the narrowed query
+     */
+    public CoffeeQuery atLeast(CoffeeAttribute attribute, double min) {
+        return between(attribute, min, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns a query that also requires the attribute to be at most the specified value.
+     *
+     * @param attribute the attribute to check
+     * @param max       the highest accepted value
+     * @return the narrowed query
+     */
+    public CoffeeQuery atMost(CoffeeAttribute attribute, double max) {
+        return between(attribute, Double.NEGATIVE_INFINITY, max);
+    }
+
+    /**
+     * Returns a query that also requires the coffee to be of one of the specified brands.
+     *
+     * @param brands the accepted brands
+     * @return the narrowed query
+     */
+    public CoffeeQuery brandIn(String... brands) {
+        if (brands == null) throw new NullPointerException("Brands cannot be null.");
+        Set<String> accepted = new HashSet<>(Arrays.asList(brands));
+        for (int i = 0; i < conditions.size(); i++) {
+            Condition condition = conditions.get(i);
+            if (condition instanceof BrandIn) {
+                Set<String> both = new HashSet<>(((BrandIn) condition).brands);
+                both.retainAll(accepted);
+                return replace(i, new BrandIn(both));
+            }
+        }
+        return with(new BrandIn(accepted));
+    }
+
+    /**
+     * Returns a query that also requires the coffee to be of the specified kind.
+     *
+     * @param kind the accepted kind
+     * @return the narrowed query
+     */
+    public CoffeeQuery ofKind(CoffeeKind kind) {
+        if (kind == null) throw new NullPointerException("Kind cannot be null.");
+        return with(new KindIs(kind));
+    }
+
+    /**
+     * Returns a query that also requires the coffee to be a ground coffee with the specified grind size.
+     *
+     * @param grindSize the accepted grind size
+     * @return the narrowed query
+     */
+    public CoffeeQuery grindSize(String grindSize) {
+        return with(new DetailIs(CoffeeKind.GROUND, grindSize));
+    }
+
+    /**
+     * Returns a query that also requires the coffee to be a whole bean coffee from the specified country.
+     *
+     * @param countryOfOrigin the accepted country of origin
+     * @return the narrowed query
+     */
+    public CoffeeQuery countryOfOrigin(String countryOfOrigin) {
+        return with(new DetailIs(CoffeeKind.WHOLE_BEAN, countryOfOrigin));
+    }
+
+    /**
+     * Returns a query that also requires the coffee to be an instant coffee sold in the specified package type.
+     *
+     * @param packageType the accepted package type
+     * @return the narrowed query
+     */
+    public CoffeeQuery packageType(String packageType) {
+        return with(new DetailIs(CoffeeKind.INSTANT, packageType));
+    }
+
+    /**
+     * Tests whether a coffee matches every condition of this query.
+     *
+     * @param coffee the coffee to test
+     * @return true if the coffee matches the query
+     */
+    public boolean test(Coffee coffee) {
+        for (Condition condition : conditions) {
+            if (!condition.test(coffee)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a spliterator over the coffees of the list that match this query, in list order.
+     *
+     * @param coffees the coffees to filter
+     * @return a lazily filtering spliterator over the list
+     */
+    public Spliterator<Coffee> spliterator(List<Coffee> coffees) {
+        if (coffees == null) throw new NullPointerException("Coffee list cannot be null.");
+        if (conditions.isEmpty()) return coffees.spliterator();
+        return new FilteringSpliterator(coffees.spliterator(), compile(order(coffees)));
+    }
+
+    /**
+     * Returns a spliterator over the coffees of the view's list that match this query,
+     * using the indexes of the view to narrow down the candidates.
+     *
+     * @param view the indexed view to query
+     * @return a lazily filtering spliterator over the candidates
+     */
+    public Spliterator<Coffee> spliterator(IndexedCoffeeView view) {
+        if (view == null) throw new NullPointerException("View cannot be null.");
+        Condition driving = null;
+        int fewest = Integer.MAX_VALUE;
+        // Hash lookups count in O(1), so they go first; a range then stops counting as soon
+        // as it matches no fewer coffees than the most selective condition so far.
+        for (boolean ranges : new boolean[] {false, true}) {
+            for (Condition condition : conditions) {
+                if (condition instanceof Range != ranges) continue;
+                int count = condition.indexedCount(view, fewest);
+                if (count >= 0 && count < fewest) {
+                    driving = condition;
+                    fewest = count;
+                }
+            }
+        }
+        if (driving == null) return spliterator(view.getList());
+        List<Coffee> candidates = driving.fromIndex(view);
+        if (candidates == null) return spliterator(view.getList());
+        List<Condition> remaining = new ArrayList<>(order(candidates));
+        remaining.remove(driving);
+        if (remaining.isEmpty()) return candidates.spliterator();
+        return new FilteringSpliterator(candidates.spliterator(), compile(remaining));
+    }
+
+    /**
+     * Returns a sequential stream of the coffees of the list that match this query, in list order.
+     *
+     * @param coffees the coffees to filter
+     * @return a stream of the matching coffees
+     */
+    public Stream<Coffee> stream(List<Coffee> coffees) {
+        return StreamSupport.stream(spliterator(coffees), false);
+    }
+
+    /**
+     * Returns a sequential stream of the coffees of the view's list that match this query.
+     *
+     * @param view the indexed view to query
+     * @return a stream of the matching coffees
+     */
+    public Stream<Coffee> stream(IndexedCoffeeView view) {
+        return StreamSupport.stream(spliterator(view), false);
+    }
+
+    private CoffeeQuery with(Condition condition) {
+        List<Condition> extended = new ArrayList<>(conditions.size() + 1);
+        extended.addAll(conditions);
+        extended.add(condition);
+        return new CoffeeQuery(Collections.unmodifiableList(extended));
+    }
+
+    private CoffeeQuery replace(int index, Condition condition) {
+        List<Condition> replaced = new ArrayList<>(conditions);
+        replaced.set(index, condition);
+        return new CoffeeQuery(Collections.unmodifiableList(replaced));
+    }
+
+    /**
+     * Orders the conditions by increasing rank, the cost of a test divided by the
+     * fraction of coffees it rejects, as measured on evenly spaced samples of the input.
+     */
+    private List<Condition> order(List<Coffee> coffees) {
+        int size = coffees.size();
+        int samples = Math.min(size, SAMPLE_SIZE);
+        List<Condition> ordered = new ArrayList<>(conditions);
+        if (ordered.size() < 2 || samples == 0) return ordered;
+        double[] ranks = new double[ordered.size()];
+        for (int c = 0; c < ordered.size(); c++) {
+            Condition condition = ordered.get(c);
+            int matched = 0;
+            for (int s = 0; s < samples; s++) {
+                if (condition.test(coffees.get((int) ((long) s * size / samples)))) matched++;
+            }
+            double rejected = (samples - matched + 1.0) / (samples + 2.0);
+            ranks[c] = condition.cost() / rejected;
+        }
+        Integer[] positions = new Integer[ordered.size()];
+        for (int i = 0; i < positions.length; i++) positions[i] = i;
+        Arrays.sort(positions, (a, b) -> Double.compare(ranks[a], ranks[b]));
+        List<Condition> result = new ArrayList<>(positions.length);
+        for (int position : positions) result.add(ordered.get(position));
+        return result;
+    }
+
+    /**
+     * Compiles ordered conditions into a single filter, unrolling the common short chains.
+     */
+    private static Condition compile(List<Condition> ordered) {
+        switch (ordered.size()) {
+            case 1:
+                return ordered.get(0);
+            case 2:
+                return new Both(ordered.get(0), ordered.get(1));
+            default:
+                return new Both(ordered.get(0), compile(ordered.subList(1, ordered.size())));
+        }
+    }
+
+    /**
+     * Single condition of a query.
+     */
+    private abstract static class Condition {
+
+        abstract boolean test(Coffee coffee);
+
+        /**
+         * Returns the relative cost of a test, 1 being a numeric comparison.
+         */
+        abstract double cost();
+
+        /**
+         * Returns the number of coffees of the view matching this condition, or -1 if the
+         * view has no index for it. Counting may stop once the limit is reached, returning
+         * a number not lower than the limit.
+         */
+        int indexedCount(IndexedCoffeeView view, int limit) {
+            return -1;
+        }
+
+        /**
+         * Returns the coffees of the view matching this condition, looked up in its indexes,
+         * or null if the view has no index for it.
+         */
+        List<Coffee> fromIndex(IndexedCoffeeView view) {
+            return null;
+        }
+    }
+
+    /**
+     * Conjunction of two conditions, testing the first one first.
+     */
+    private static final class Both extends Condition {
+        private final Condition first;
+        private final Condition second;
+
+        Both(Condition first, Condition second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        boolean test(Coffee coffee) {
+            return first.test(coffee) && second.test(coffee);
+        }
+
+        @Override
+        double cost() {
+            return first.cost() + second.cost();
+        }
+    }
+
+    private static final class Range extends Condition {
+        private final CoffeeAttribute attribute;
+        private final double from;
+        private final double to;
+
+        Range(CoffeeAttribute attribute, double from, double to) {
+            this.attribute = attribute;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        boolean test(Coffee coffee) {
+            double value = attribute.of(coffee);
+            return value >= from && value <= to;
+        }
+
+        @Override
+        double cost() {
+            return 1;
+        }
+
+        @Override
+        int indexedCount(IndexedCoffeeView view, int limit) {
+            return view.countInRange(attribute, from, to, limit);
+        }
+
+        @Override
+        List<Coffee> fromIndex(IndexedCoffeeView view) {
+            return view.inRange(attribute, from, to);
+        }
+    }
+
+    private static final class BrandIn extends Condition {
+        private final Set<String> brands;
+
+        BrandIn(Set<String> brands) {
+            this.brands = brands;
+        }
+
+        @Override
+        boolean test(Coffee coffee) {
+            return brands.contains(coffee.getBrand());
+        }
+
+        @Override
+        double cost() {
+            return 3;
+        }
+
+        @Override
+        int indexedCount(IndexedCoffeeView view, int limit) {
+            int count = 0;
+            for (String brand : brands) count += view.countBrand(brand);
+            return count;
+        }
+
+        @Override
+        List<Coffee> fromIndex(IndexedCoffeeView view) {
+            List<Coffee> result = new ArrayList<>();
+            for (String brand : brands) result.addAll(view.byBrand(brand));
+            return result;
+        }
+    }
+
+    private static final class KindIs extends Condition {
+        private final CoffeeKind kind;
+
+        KindIs(CoffeeKind kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        boolean test(Coffee coffee) {
+            return CoffeeKind.of(coffee) == kind;
+        }
+
+        @Override
+        double cost() {
+            return 1;
+        }
+    }
+
+    private static final class DetailIs extends Condition {
+        private final CoffeeKind kind;
+        private final String detail;
+
+        DetailIs(CoffeeKind kind, String detail) {
+            if (detail == null) throw new NullPointerException("Detail cannot be null.");
+            this.kind = kind;
+            this.detail = detail;
+        }
+
+        @Override
+        boolean test(Coffee coffee) {
+            return CoffeeKind.of(coffee) == kind && detail.equals(kind.detailOf(coffee));
+        }
+
+        @Override
+        double cost() {
+            return 4;
+        }
+
+        @Override
+        int indexedCount(IndexedCoffeeView view, int limit) {
+            return view.countDetail(kind, detail);
+        }
+
+        @Override
+        List<Coffee> fromIndex(IndexedCoffeeView view) {
+            return view.byDetail(kind, detail);
+        }
+    }
+
+    /**
+     * Spliterator handing out the coffees of a source spliterator that pass a filter.
+     * Splits follow the splits of the source.
+     */
+    private static final class FilteringSpliterator implements Spliterator<Coffee>, Consumer<Coffee> {
+        private final Spliterator<Coffee> source;
+        private final Condition filter;
+        private Coffee current;
+
+        FilteringSpliterator(Spliterator<Coffee> source, Condition filter) {
+            this.source = source;
+            this.filter = filter;
+        }
+
+        @Override
+        public void accept(Coffee coffee) {
+            current = coffee;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Coffee> action) {
+            if (action == null) throw new NullPointerException("Action cannot be null.");
+            while (source.tryAdvance(this)) {
+                Coffee coffee = current;
+                current = null;
+                if (filter.test(coffee)) {
+                    action.accept(coffee);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Coffee> action) {
+            if (action == null) throw new NullPointerException("Action cannot be null.");
+            source.forEachRemaining(coffee -> {
+                if (filter.test(coffee)) action.accept(coffee);
+            });
+        }
+
+        @Override
+        public Spliterator<Coffee> trySplit() {
+            Spliterator<Coffee> prefix = source.trySplit();
+            return prefix == null ? null : new FilteringSpliterator(prefix, filter);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of derived queries over a {@link CoffeeList}, such as the top
+ * coffees by an attribute, the statistics of an attribute per brand or the number of
+ * coffees per type.
+ * <p>
+ * The first request for a query computes it from the list; later requests return the
+ * memoized result in O(1) until a modification of the list affects it. Invalidation is
+ * precise and costs O(1) per modification, without visiting the cached entries:
+ * inserting, removing or clearing coffees ends the current mutation epoch and outdates
+ * every entry, while replacing a coffee only outdates the entries depending on an
+ * attribute that differs between the old and the new coffee. For example, replacing a
+ * coffee by one with a different price keeps the cached counts per type. Results holding
+ * coffees, like {@link #topK(CoffeeAttribute, int)}, are outdated by every replacement
+ * with a coffee that is not equal to the old one, so they never return a coffee no
+ * longer in the list. Outdated entries are recomputed on their next request.
+ * </p>
+ * <p>
+ * The cache holds at most a fixed number of entries and evicts the least recently used
+ * entry first. Hits, misses, invalidations and evictions are counted. Cached results are
+ * unmodifiable. Like the list, the cache is not thread-safe; it is attached to the list
+ * until it is closed.
+ * </p>
+ */
+public final class CoffeeQueryCache implements AutoCloseable {
+    /** Default maximum number of cached entries. */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final int BRAND = CoffeeAttribute.values().length;
+    private static final int TYPE = BRAND + 1;
+    /** Changes whenever a coffee is replaced by one not equal to it, for results holding coffees. */
+    private static final int IDENTITY = TYPE + 1;
+    private static final int ASPECTS = IDENTITY + 1;
+    private static final int ALL_ASPECTS = (1 << ASPECTS) - 1;
+
+    private final CoffeeList list;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries;
+    private final Invalidator invalidator = new Invalidator();
+    private long clock;
+    private long lastStructuralChange;
+    private final long[] lastChange = new long[ASPECTS];
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    /**
+     * Creates a cache over the specified list holding at most
+     * {@value #DEFAULT_MAX_ENTRIES} entries.
+     *
+     * @param list the list to query
+     */
+    public CoffeeQueryCache(CoffeeList list) {
+        this(list, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache over the specified list.
+     *
+     * @param list       the list to query
+     * @param maxEntries the maximum number of cached entries
+     * @throws IllegalArgumentException if the maximum is not positive
+     */
+    public CoffeeQueryCache(CoffeeList list, int maxEntries) {
+        if (list == null) throw new NullPointerException("Coffee list cannot be null.");
+        if (maxEntries <= 0) throw new IllegalArgumentException("Maximum number of entries must be positive.");
+        this.list = list;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= CoffeeQueryCache.this.maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+        list.addListener(invalidator);
+    }
+
+    /**
+     * Returns the {@code k} coffees with the smallest values of an attribute, in
+     * ascending order, as selected by {@link CoffeeList#topK(Comparator, int)}.
+     *
+     * @param attribute the attribute to rank the coffees by
+     * @param k         the maximum number of coffees to return
+     * @return the {@code min(k, size())} coffees with the smallest values
+     * @throws IllegalArgumentException if {@code k} is negative
+     */
+    public List<Coffee> topK(CoffeeAttribute attribute, int k) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative.");
+        return lookup(new Key("topK", attribute, k), 1 << attribute.ordinal() | 1 << IDENTITY,
+                coffees -> Collections.unmodifiableList(new ArrayList<>(
+                        coffees.topK(Comparator.comparingDouble(attribute::of), k))));
+    }
+
+    /**
+     * Returns the statistics of an attribute over the whole list, as computed by
+     * {@link CoffeeList#stats(CoffeeAttribute)}.
+     *
+     * @param attribute the attribute to aggregate
+     * @return the statistics of the attribute
+     */
+    public CoffeeStatistics stats(CoffeeAttribute attribute) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        return lookup(new Key("stats", attribute), 1 << attribute.ordinal(), coffees -> coffees.stats(attribute));
+    }
+
+    /**
+     * Returns the statistics of an attribute per brand, as computed by
+     * {@link CoffeeList#groupByBrand(CoffeeAttribute)}; the average quality of a brand
+     * is {@code groupByBrand(CoffeeAttribute.QUALITY).get(brand).getAverage()}.
+     *
+     * @param attribute the attribute to aggregate
+     * @return the statistics of each brand, keyed by brand
+     */
+    public Map<String, CoffeeStatistics> groupByBrand(CoffeeAttribute attribute) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        return lookup(new Key("groupByBrand", attribute), 1 << attribute.ordinal() | 1 << BRAND,
+                coffees -> Collections.unmodifiableMap(coffees.groupByBrand(attribute)));
+    }
+
+    /**
+     * Returns the number of coffees of every type, as returned by {@link Coffee#getType()},
+     * in the order the types first occur in the list.
+     *
+     * @return the number of coffees of each type, keyed by type
+     */
+    public Map<String, Integer> countByType() {
+        return lookup(new Key("countByType"), 1 << TYPE, coffees -> {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Coffee coffee : coffees) counts.merge(coffee.getType(), 1, Integer::sum);
+            return Collections.unmodifiableMap(counts);
+        });
+    }
+
+    /**
+     * Returns the memoized result of a custom query, computing it if it is not cached or
+     * outdated. The result is outdated by any modification of the list.
+     *
+     * @param key   the key identifying the query, compared with {@code equals}
+     * @param query the query, which must not modify the list
+     * @param <T>   the type of the result
+     * @return the result of the query
+     */
+    public <T> T get(Object key, Function<? super CoffeeList, ? extends T> query) {
+        if (key == null) throw new NullPointerException("Key cannot be null.");
+        if (query == null) throw new NullPointerException("Query cannot be null.");
+        return lookup(new Key("get", key, ALL_ASPECTS), ALL_ASPECTS, query);
+    }
+
+    /**
+     * Returns the memoized result of a custom query that only reads the specified
+     * attributes of the coffees, computing it if it is not cached or outdated. The result
+     * is outdated by insertions and removals, and by replacements that change one of
+     * these attributes. Queries whose result holds coffees of the list should use
+     * {@link #get(Object, Function)} instead, which is outdated by every replacement.
+     * The same key used with other attributes, or with {@link #get(Object, Function)},
+     * identifies a separate entry.
+     *
+     * @param key        the key identifying the query, compared with {@code equals}
+     * @param attributes the attributes the query reads
+     * @param query      the query, which must not modify the list
+     * @param <T>        the type of the result
+     * @return the result of the query
+     */
+    public <T> T get(Object key, Set<CoffeeAttribute> attributes, Function<? super CoffeeList, ? extends T> query) {
+        if (key == null) throw new NullPointerException("Key cannot be null.");
+        if (attributes == null) throw new NullPointerException("Attributes cannot be null.");
+        if (query == null) throw new NullPointerException("Query cannot be null.");
+        int dependencies = 0;
+        for (CoffeeAttribute attribute : attributes) dependencies |= 1 << attribute.ordinal();
+        return lookup(new Key("get", key, dependencies), dependencies, query);
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     *
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests that computed their query.
+     *
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of requests answered from the cache.
+     *
+     * @return the hit rate, or NaN if nothing was requested
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? Double.NaN : (double) hits / requests;
+    }
+
+    /**
+     * Returns the number of misses caused by a cached entry outdated by a modification
+     * of the list.
+     *
+     * @return the number of invalidated entries
+     */
+    public long getInvalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for others.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of cached entries, including outdated ones.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Discards every cached entry.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Detaches the cache from the list and discards every cached entry. The cache must not
+     * be queried afterwards.
+     */
+    @Override
+    public void close() {
+        list.removeListener(invalidator);
+        entries.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(Key key, int dependencies, Function<? super CoffeeList, ? extends T> query) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (isCurrent(entry)) {
+                hits++;
+                return (T) entry.value;
+            }
+            invalidations++;
+        }
+        misses++;
+        T value = query.apply(list);
+        entries.put(key, new Entry(value, dependencies, clock));
+        return value;
+    }
+
+    private boolean isCurrent(Entry entry) {
+        if (lastStructuralChange > entry.computedAt) return false;
+        for (int aspects = entry.dependencies; aspects != 0; aspects &= aspects - 1) {
+            if (lastChange[Integer.numberOfTrailingZeros(aspects)] > entry.computedAt) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the aspects, numeric attributes, brand, type and identity, in which two
+     * coffees differ.
+     */
+    private static int changedAspects(Coffee oldValue, Coffee replacement) {
+        if (oldValue.equals(replacement)) return 0;
+        int changed = 1 << IDENTITY;
+        for (CoffeeAttribute attribute : CoffeeAttribute.values()) {
+            if (Double.compare(attribute.of(oldValue), attribute.of(replacement)) != 0) {
+                changed |= 1 << attribute.ordinal();
+            }
+        }
+        if (!oldValue.getBrand().equals(replacement.getBrand())) changed |= 1 << BRAND;
+        if (!oldValue.getType().equals(replacement.getType())) changed |= 1 << TYPE;
+        return changed;
+    }
+
+    /**
+     * Memoized result with the aspects it depends on and the clock value it was computed at.
+     */
+    private static final class Entry {
+        private final Object value;
+        private final int dependencies;
+        private final long computedAt;
+
+        Entry(Object value, int dependencies, long computedAt) {
+            this.value = value;
+            this.dependencies = dependencies;
+            this.computedAt = computedAt;
+        }
+    }
+
+    /**
+     * Name and arguments of a query.
+     */
+    private static final class Key {
+        private final Object[] parts;
+        private final int hash;
+
+        Key(Object... parts) {
+            this.parts = parts;
+            this.hash = Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(parts, ((Key) o).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Advances the clock on every modification of the list, recording which aspects it
+     * may have changed.
+     */
+    private final class Invalidator implements CoffeeListListener {
+        @Override
+        public void added(int index, Coffee coffee) {
+            lastStructuralChange = ++clock;
+        }
+
+        @Override
+        public void removed(int index, Coffee coffee) {
+            lastStructuralChange = ++clock;
+        }
+
+        @Override
+        public void replaced(int index, Coffee oldValue, Coffee replacement) {
+            int changed = changedAspects(oldValue, replacement);
+            if (changed == 0) return;
+            clock++;
+            for (int aspects = changed; aspects != 0; aspects &= aspects - 1) {
+                lastChange[Integer.numberOfTrailingZeros(aspects)] = clock;
+            }
+        }
+
+        @Override
+        public void cleared() {
+            lastStructuralChange = ++clock;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.example;
+import java.util.Locale;
+
+/**
+ * Text formats for exchanging coffee records, one record per line.
+ * <p>
+ * Every record has seven fields, in this order: the {@link CoffeeKind} name, the brand,
+ * the weight, the price, the quality, the volume and the subtype-specific detail
+ * (country of origin, grind size or package type).
+ * </p>
+ */
+public enum CoffeeRecordFormat {
+    /**
+     * Comma-separated values with a header line. Fields containing commas or quotes are
+     * enclosed in double quotes, and quotes inside them are doubled. Fields cannot span lines.
+     */
+    CSV {
+        @Override
+        String header() {
+            return String.join(",", FIELDS);
+        }
+
+        @Override
+        String[] parse(String line) {
+            String[] fields = new String[FIELDS.length];
+            int count = 0;
+            int i = 0;
+            int length = line.length();
+            while (true) {
+                StringBuilder field = new StringBuilder();
+                if (i < length && line.charAt(i) == '"') {
+                    i++;
+                    while (true) {
+                        if (i >= length) throw new IllegalArgumentException("Unterminated quoted field.");
+                        char c = line.charAt(i++);
+                        if (c == '"') {
+                            if (i < length && line.charAt(i) == '"') {
+                                field.append('"');
+                                i++;
+                            } else {
+                                break;
+                            }
+                        } else {
+                            field.append(c);
+                        }
+                    }
+                    if (i < length && line.charAt(i) != ',') {
+                        throw new IllegalArgumentException("Unexpected character after quoted field.");
+                    }
+                } else {
+                    int end = line.indexOf(',', i);
+                    if (end < 0) end = length;
+                    field.append(line, i, end);
+                    i = end;
+                }
+                if (count == fields.length) throw new IllegalArgumentException(tooManyFields());
+                fields[count++] = field.toString();
+                if (i >= length) break;
+                i++;
+            }
+            if (count != fields.length) throw new IllegalArgumentException(tooFewFields());
+            return fields;
+        }
+
+        @Override
+        String format(String[] fields) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) line.append(',');
+                String field = fields[i];
+                if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+                    line.append('"').append(field.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(field);
+                }
+            }
+            return line.toString();
+        }
+    },
+    /**
+     * JSON lines: one flat JSON object per line with the keys {@code kind}, {@code brand},
+     * {@code weight}, {@code price}, {@code quality}, {@code volume} and {@code detail}.
+     */
+    JSON_LINES {
+        @Override
+        String header() {
+            return null;
+        }
+
+        @Override
+        String[] parse(String line) {
+            return new JsonObjectParser(line).parse();
+        }
+
+        @Override
+        String format(String[] fields) {
+            StringBuilder line = new StringBuilder("{");
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) line.append(',');
+                line.append('"').append(FIELDS[i]).append("\":");
+                if (NUMERIC[i]) {
+                    line.append(fields[i]);
+                } else {
+                    appendJsonString(line, fields[i]);
+                }
+            }
+            return line.append('}').toString();
+        }
+    };
+
+    /** Names of the fields of a record, in record order. */
+    static final String[] FIELDS = {"kind", "brand", "weight", "price", "quality", "volume", "detail"};
+    private static final boolean[] NUMERIC = {false, false, true, true, true, true, false};
+
+    /**
+     * Returns the header line written before the records, or null if the format has none.
+     *
+     * @return the header line
+     */
+    abstract String header();
+
+    /**
+     * Splits a line into the seven fields of a record, in record order.
+     *
+     * @param line the line to parse
+     * @return the fields of the record
+     * @throws IllegalArgumentException if the line is malformed
+     */
+    abstract String[] parse(String line);
+
+    /**
+     * Formats the seven fields of a record as a line.
+     *
+     * @param fields the fields of the record, in record order
+     * @return the formatted line, without line terminator
+     */
+    abstract String format(String[] fields);
+
+    /**
+     * Builds a coffee from the fields of a record.
+     *
+     * @param fields the fields of the record, in record order
+     * @return the coffee described by the record
+     * @throws IllegalArgumentException if a field is missing or invalid
+     */
+    static Coffee toCoffee(String[] fields) {
+        return toCoffee(fields, null);
+    }
+
+    /**
+     * Builds a coffee from the fields of a record through a factory.
+     *
+     * @param fields  the fields of the record, in record order
+     * @param factory the factory reusing equal coffees, or null to construct a new coffee
+     * @return the coffee described by the record
+     * @throws IllegalArgumentException if a field is missing or invalid
+     */
+    static Coffee toCoffee(String[] fields, CoffeeFactory factory) {
+        CoffeeKind kind = CoffeeKind.valueOf(fields[0].trim().toUpperCase(Locale.ROOT));
+        if (factory == null) {
+            return kind.create(number(fields, 2), number(fields, 3), number(fields, 4), fields[1],
+                    number(fields, 5), fields[6]);
+        }
+        return factory.create(kind, number(fields, 2), number(fields, 3), number(fields, 4), fields[1],
+                number(fields, 5), fields[6]);
+    }
+
+    /**
+     * Splits a coffee into the fields of a record.
+     *
+     * @param coffee the coffee to split
+     * @return the fields of the record, in record order
+     */
+    static String[] toFields(Coffee coffee) {
+        CoffeeKind kind = CoffeeKind.of(coffee);
+        return new String[] {
+            kind.name(),
+            coffee.getBrand(),
+            Double.toString(coffee.getWeight()),
+            Double.toString(coffee.getPrice()),
+            Double.toString(coffee.getQuality()),
+            Double.toString(coffee.getVolume()),
+            kind.detailOf(coffee)
+        };
+    }
+
+    private static double number(String[] fields, int i) {
+        try {
+            return Double.parseDouble(fields[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field " + FIELDS[i] + " is not a number: " + fields[i]);
+        }
+    }
+
+    private static String tooManyFields() {
+        return "Too many fields, expected " + FIELDS.length + ".";
+    }
+
+    private static String tooFewFields() {
+        return "Too few fields, expected " + FIELDS.length + ".";
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parser of a single flat JSON object whose values are strings or numbers.
+     */
+    private static final class JsonObjectParser {
+        private final String text;
+        private int i;
+
+        JsonObjectParser(String text) {
+            this.text = text;
+        }
+
+        String[] parse() {
+            String[] fields = new String[FIELDS.length];
+            expect('{');
+            skipSpaces();
+            if (peek() == '}') {
+                i++;
+            } else {
+                while (true) {
+                    String key = readString();
+                    expect(':');
+                    skipSpaces();
+                    String value = peek() == '"' ? readString() : readNumber();
+                    int field = fieldIndex(key);
+                    if (field >= 0) fields[field] = value;
+                    skipSpaces();
+                    char c = next();
+                    if (c == '}') break;
+                    if (c != ',') throw new IllegalArgumentException("Expected ',' or '}' at position " + (i - 1) + ".");
+                    skipSpaces();
+                }
+            }
+            skipSpaces();
+            if (i != text.length()) throw new IllegalArgumentException("Unexpected text after the object.");
+            for (int f = 0; f < fields.length; f++) {
+                if (fields[f] == null) throw new IllegalArgumentException("Missing field " + FIELDS[f] + ".");
+            }
+            return fields;
+        }
+
+        private static int fieldIndex(String key) {
+            for (int f = 0; f < FIELDS.length; f++) {
+                if (FIELDS[f].equals(key)) return f;
+            }
+            return -1;
+        }
+
+        private String readString() {
+            skipSpaces();
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (i + 4 > text.length()) throw new IllegalArgumentException("Truncated unicode escape.");
+                        value.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+                        i += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+        }
+
+        private String readNumber() {
+            int start = i;
+            while (i < text.length() && "+-.0123456789eE".indexOf(text.charAt(i)) >= 0) i++;
+            if (start == i) throw new IllegalArgumentException("Expected a string or a number at position " + i + ".");
+            return text.substring(start, i);
+        }
+
+        private void expect(char expected) {
+            skipSpaces();
+            if (next() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at position " + (i - 1) + ".");
+            }
+        }
+
+        private char peek() {
+            if (i >= text.length()) throw new IllegalArgumentException("Unexpected end of line.");
+            return text.charAt(i);
+        }
+
+        private char next() {
+            char c = peek();
+            i++;
+            return c;
+        }
+
+        private void skipSpaces() {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        }
+    }
+}
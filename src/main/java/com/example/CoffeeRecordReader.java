@@ -0,0 +1,365 @@
+package com.example;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming reader of coffee records in one of the {@link CoffeeRecordFormat}s.
+ * <p>
+ * Records are read line by line through a fixed-size buffer and handed to the caller one
+ * coffee at a time, so memory use does not depend on the size of the input. Lines longer
+ * than {@value #MAX_LINE_LENGTH} characters are rejected. A malformed or invalid record
+ * does not abort the import: it is reported as a {@link RowError} to the error handler
+ * and the reader moves on to the next line. Blank lines and the header line of the
+ * format are skipped.
+ * </p>
+ * <p>
+ * {@link #readParallel(Path, int)} splits a single large file into chunks at line
+ * boundaries and parses them on several cores, keeping the order of the records.
+ * </p>
+ */
+public class CoffeeRecordReader {
+    /** Maximum number of characters of a line, terminator excluded. */
+    public static final int MAX_LINE_LENGTH = 1 << 16;
+
+    private static final int BUFFER_CHARS = 1 << 13;
+    private static final long MAX_CHUNK_BYTES = 1L << 28;
+
+    private final CoffeeRecordFormat format;
+    private final Consumer<? super RowError> errorHandler;
+    private final CoffeeFactory factory;
+
+    /**
+     * Creates a reader of records in the specified format.
+     *
+     * @param format       the format of the records
+     * @param errorHandler receives every rejected record, in input order
+     */
+    public CoffeeRecordReader(CoffeeRecordFormat format, Consumer<? super RowError> errorHandler) {
+        this(format, errorHandler, null);
+    }
+
+    /**
+     * Creates a reader of records in the specified format that builds its coffees through
+     * a factory, so that records equal to coffees the factory already handed out, for
+     * example the unchanged rows of a refreshed feed, reuse the existing coffees.
+     *
+     * @param format       the format of the records
+     * @param errorHandler receives every rejected record, in input order
+     * @param factory      the factory building the coffees, or null to construct new coffees
+     */
+    public CoffeeRecordReader(CoffeeRecordFormat format, Consumer<? super RowError> errorHandler,
+            CoffeeFactory factory) {
+        if (format == null) throw new NullPointerException("Format cannot be null.");
+        if (errorHandler == null) throw new NullPointerException("Error handler cannot be null.");
+        this.format = format;
+        this.errorHandler = errorHandler;
+        this.factory = factory;
+    }
+
+    /**
+     * Reads every record of the input and hands the coffees to the sink, in input order.
+     * The input is not closed.
+     *
+     * @param in   the records to read
+     * @param sink receives every valid coffee
+     * @return the number of coffees handed to the sink
+     * @throws IOException if the input cannot be read
+     */
+    public long read(Reader in, Consumer<? super Coffee> sink) throws IOException {
+        if (sink == null) throw new NullPointerException("Sink cannot be null.");
+        return parse(new LineReader(in), true, sink, errorHandler);
+    }
+
+    /**
+     * Reads every record of a UTF-8 file into a new list.
+     *
+     * @param file the file to read
+     * @return the valid coffees of the file, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public CoffeeList read(Path file) throws IOException {
+        CoffeeList coffees = new CoffeeList();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            read(in, coffees::add);
+        }
+        return coffees;
+    }
+
+    /**
+     * Reads every record of a UTF-8 file into a new list, parsing chunks of the file in
+     * parallel. Errors are reported to the error handler on the calling thread, in file
+     * order, once all chunks are parsed.
+     *
+     * @param file        the file to read
+     * @param parallelism the number of threads parsing the file
+     * @return the valid coffees of the file, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public CoffeeList readParallel(Path file, int parallelism) throws IOException {
+        if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive.");
+        List<Chunk> chunks;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, parallelism);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                chunks = pool.submit(() -> IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1], i == 0))
+                        .collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+                throw new IOException("Failed to read " + file, e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        int total = 0;
+        for (Chunk chunk : chunks) total += chunk.coffees.size();
+        CoffeeList coffees = new CoffeeList(total);
+        long firstLine = 0;
+        for (Chunk chunk : chunks) {
+            coffees.addAll(chunk.coffees);
+            for (RowError error : chunk.errors) {
+                errorHandler.accept(new RowError(firstLine + error.line, error.text, error.message));
+            }
+            firstLine += chunk.lines;
+        }
+        return coffees;
+    }
+
+    /**
+     * Splits the file into byte ranges ending right after a line terminator.
+     */
+    private static long[] chunkBounds(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        int count = (int) Math.max(parallelism * 4L, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        count = (int) Math.max(1, Math.min(count, size / BUFFER_CHARS + 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(BUFFER_CHARS);
+        for (int k = 1; k < count; k++) {
+            long position = Math.max(size / count * k, bounds.get(bounds.size() - 1));
+            long boundary = size;
+            search:
+            while (position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read < 0) break;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        boundary = position + i + 1;
+                        break search;
+                    }
+                }
+                position += read;
+            }
+            if (boundary >= size) break;
+            if (boundary > bounds.get(bounds.size() - 1)) bounds.add(boundary);
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    private Chunk parseChunk(FileChannel channel, long from, long to, boolean first) {
+        Chunk chunk = new Chunk();
+        try {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            LineReader lines = new LineReader(
+                    new InputStreamReader(new ByteBufferInputStream(bytes), StandardCharsets.UTF_8));
+            parse(lines, first, chunk.coffees::add, chunk.errors::add);
+            chunk.lines = lines.number;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return chunk;
+    }
+
+    /**
+     * Parses every line of the input.
+     *
+     * @return the number of coffees handed to the sink
+     */
+    private long parse(LineReader lines, boolean headerAllowed, Consumer<? super Coffee> sink,
+            Consumer<? super RowError> errors) throws IOException {
+        String header = format.header();
+        long accepted = 0;
+        String line;
+        while ((line = lines.next()) != null) {
+            if (lines.overflowed) {
+                errors.accept(new RowError(lines.number, line, "Line is longer than " + MAX_LINE_LENGTH + " characters."));
+                continue;
+            }
+            if (line.isBlank()) continue;
+            if (headerAllowed && lines.number == 1 && header != null && line.trim().equalsIgnoreCase(header)) continue;
+            try {
+                sink.accept(CoffeeRecordFormat.toCoffee(format.parse(line), factory));
+                accepted++;
+            } catch (IllegalArgumentException e) {
+                errors.accept(new RowError(lines.number, line, e.getMessage()));
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Record rejected by a {@link CoffeeRecordReader}.
+     */
+    public static final class RowError {
+        private final long line;
+        private final String text;
+        private final String message;
+
+        RowError(long line, String text, String message) {
+            this.line = line;
+            this.text = text;
+            this.message = message;
+        }
+
+        /**
+         * Returns the number of the rejected line, starting at 1.
+         *
+         * @return the line number
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the text of the rejected line, truncated to the maximum line length.
+         *
+         * @return the text of the line
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Returns the reason why the line was rejected.
+         *
+         * @return the error message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Coffees, errors and line count of one parsed chunk.
+     */
+    private static final class Chunk {
+        private final List<Coffee> coffees = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long lines;
+    }
+
+    /**
+     * Splits a reader into lines through a fixed-size buffer. Overlong lines are truncated
+     * and flagged instead of being buffered completely.
+     */
+    private static final class LineReader {
+        private final Reader in;
+        private final char[] buffer = new char[BUFFER_CHARS];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private long number;
+        private boolean overflowed;
+
+        LineReader(Reader in) {
+            this.in = in;
+        }
+
+        String next() throws IOException {
+            line.setLength(0);
+            overflowed = false;
+            boolean any = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (!any) return null;
+                        break;
+                    }
+                }
+                any = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') position++;
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    break;
+                }
+            }
+            number++;
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') line.setLength(--end);
+            if (end > MAX_LINE_LENGTH) {
+                overflowed = true;
+                line.setLength(MAX_LINE_LENGTH);
+            }
+            return line.toString();
+        }
+
+        private void append(int from, int to) {
+            int room = MAX_LINE_LENGTH + 1 - line.length();
+            if (to - from > room) {
+                overflowed = true;
+                to = from + Math.max(room, 0);
+            }
+            line.append(buffer, from, to - from);
+        }
+    }
+
+    /**
+     * Input stream over the remaining bytes of a buffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!bytes.hasRemaining()) return -1;
+            int n = Math.min(len, bytes.remaining());
+            bytes.get(b, off, n);
+            return n;
+        }
+    }
+}
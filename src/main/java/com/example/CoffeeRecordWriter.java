@@ -0,0 +1,69 @@
+package com.example;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes coffees as text records in one of the {@link CoffeeRecordFormat}s, one line per
+ * coffee. The output can be read back with {@link CoffeeRecordReader}.
+ */
+public class CoffeeRecordWriter implements Closeable, Flushable {
+    private final Writer out;
+    private final CoffeeRecordFormat format;
+
+    /**
+     * Creates a writer producing records in the specified format. The header line of the
+     * format, if any, is written immediately.
+     *
+     * @param out    the destination of the records
+     * @param format the format of the records
+     * @throws IOException if the header cannot be written
+     */
+    public CoffeeRecordWriter(Writer out, CoffeeRecordFormat format) throws IOException {
+        if (out == null) throw new NullPointerException("Writer cannot be null.");
+        if (format == null) throw new NullPointerException("Format cannot be null.");
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.format = format;
+        String header = format.header();
+        if (header != null) {
+            this.out.write(header);
+            this.out.write('\n');
+        }
+    }
+
+    /**
+     * Writes one coffee as a record.
+     *
+     * @param coffee the coffee to write
+     * @throws IOException if the record cannot be written
+     */
+    public void write(Coffee coffee) throws IOException {
+        if (coffee == null) throw new NullPointerException("Coffee cannot be null.");
+        out.write(format.format(CoffeeRecordFormat.toFields(coffee)));
+        out.write('\n');
+    }
+
+    /**
+     * Writes every coffee of the specified collection, in iteration order.
+     *
+     * @param coffees the coffees to write
+     * @throws IOException if a record cannot be written
+     */
+    public void writeAll(Iterable<? extends Coffee> coffees) throws IOException {
+        for (Coffee coffee : coffees) {
+            write(coffee);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,248 @@
+package com.example;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Count, sum, minimum, maximum and mean of an attribute over a group of coffees.
+ * <p>
+ * Instances are immutable. {@link CoffeeList#stats(CoffeeAttribute)} computes them with
+ * one loop per attribute over the backing array, which calls the attribute's getter
+ * directly instead of going through {@link CoffeeAttribute#of(Coffee)} or a boxed stream.
+ * The group-by methods of {@link CoffeeList} read the attribute through
+ * {@link CoffeeAttribute#of(Coffee)}, since their cost is dominated by the group lookup.
+ * No loop is specialized per {@link Coffee} subclass: the subclasses inherit the getters
+ * of {@link Coffee} unchanged, so every call site already sees a single implementation.
+ * Arrays of at least {@value #PARALLEL_THRESHOLD} coffees are split into ranges
+ * aggregated in parallel on the common {@link ForkJoinPool}.
+ * </p>
+ */
+public final class CoffeeStatistics {
+    /** Minimum number of coffees aggregated in parallel. */
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    private static final CoffeeStatistics EMPTY = new CoffeeStatistics(0, 0, Double.NaN, Double.NaN);
+
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+
+    private CoffeeStatistics(long count, double sum, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of coffees aggregated.
+     *
+     * @return the number of coffees
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the attribute.
+     *
+     * @return the sum, or 0 if there are no coffees
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the smallest value of the attribute.
+     *
+     * @return the minimum, or NaN if there are no coffees
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value of the attribute.
+     *
+     * @return the maximum, or NaN if there are no coffees
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the arithmetic mean of the attribute.
+     *
+     * @return the mean, or NaN if there are no coffees
+     */
+    public double getAverage() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    @Override
+    public String toString() {
+        return "CoffeeStatistics{count=" + count + ", sum=" + sum + ", min=" + min + ", average=" + getAverage()
+                + ", max=" + max + "}";
+    }
+
+    /**
+     * Aggregates an attribute over a range of an array of coffees.
+     */
+    static CoffeeStatistics of(Coffee[] coffees, int from, int to, CoffeeAttribute attribute) {
+        Accumulator total = aggregate(from, to, (lo, hi) -> {
+            Accumulator range = new Accumulator();
+            range.addAll(coffees, lo, hi, attribute);
+            return range;
+        }, Accumulator::combine);
+        return total.toStatistics();
+    }
+
+    /**
+     * Aggregates an attribute per brand over a range of an array of coffees.
+     */
+    static Map<String, CoffeeStatistics> byBrand(Coffee[] coffees, int from, int to, CoffeeAttribute attribute) {
+        Map<String, Accumulator> groups = aggregate(from, to, (lo, hi) -> {
+            Map<String, Accumulator> range = new HashMap<>();
+            for (int i = lo; i < hi; i++) {
+                range.computeIfAbsent(coffees[i].getBrand(), brand -> new Accumulator())
+                        .add(attribute.of(coffees[i]));
+            }
+            return range;
+        }, CoffeeStatistics::combineGroups);
+        Map<String, CoffeeStatistics> result = new HashMap<>(groups.size() * 4 / 3 + 1);
+        groups.forEach((brand, group) -> result.put(brand, group.toStatistics()));
+        return result;
+    }
+
+    /**
+     * Aggregates an attribute per {@link CoffeeKind} over a range of an array of coffees.
+     */
+    static Map<CoffeeKind, CoffeeStatistics> byKind(Coffee[] coffees, int from, int to, CoffeeAttribute attribute) {
+        Accumulator[] groups = aggregate(from, to, (lo, hi) -> {
+            Accumulator[] range = new Accumulator[CoffeeKind.values().length];
+            for (int i = lo; i < hi; i++) {
+                int kind = CoffeeKind.of(coffees[i]).ordinal();
+                if (range[kind] == null) range[kind] = new Accumulator();
+                range[kind].add(attribute.of(coffees[i]));
+            }
+            return range;
+        }, (left, right) -> {
+            for (int kind = 0; kind < left.length; kind++) {
+                if (left[kind] == null) {
+                    left[kind] = right[kind];
+                } else if (right[kind] != null) {
+                    left[kind].combine(right[kind]);
+                }
+            }
+            return left;
+        });
+        Map<CoffeeKind, CoffeeStatistics> result = new EnumMap<>(CoffeeKind.class);
+        for (CoffeeKind kind : CoffeeKind.values()) {
+            if (groups[kind.ordinal()] != null) result.put(kind, groups[kind.ordinal()].toStatistics());
+        }
+        return result;
+    }
+
+    private static Map<String, Accumulator> combineGroups(Map<String, Accumulator> left, Map<String, Accumulator> right) {
+        right.forEach((brand, group) -> left.merge(brand, group, Accumulator::combine));
+        return left;
+    }
+
+    private static <R> R aggregate(int from, int to, RangeAggregator<R> leaf, BinaryOperator<R> combiner) {
+        if (to - from < PARALLEL_THRESHOLD) return leaf.aggregate(from, to);
+        return ForkJoinPool.commonPool().invoke(new AggregateTask<>(from, to, leaf, combiner));
+    }
+
+    /**
+     * Aggregates a range of indexes sequentially.
+     */
+    @FunctionalInterface
+    private interface RangeAggregator<R> {
+        R aggregate(int from, int to);
+    }
+
+    /**
+     * Splits a range in halves down to {@link #PARALLEL_THRESHOLD} and combines the results of the halves.
+     */
+    private static final class AggregateTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final RangeAggregator<R> leaf;
+        private final BinaryOperator<R> combiner;
+
+        AggregateTask(int from, int to, RangeAggregator<R> leaf, BinaryOperator<R> combiner) {
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from < PARALLEL_THRESHOLD) return leaf.aggregate(from, to);
+            int mid = (from + to) >>> 1;
+            AggregateTask<R> left = new AggregateTask<>(from, mid, leaf, combiner);
+            left.fork();
+            R right = new AggregateTask<>(mid, to, leaf, combiner).compute();
+            return combiner.apply(left.join(), right);
+        }
+    }
+
+    /**
+     * Mutable running statistics of one group.
+     */
+    private static final class Accumulator {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        /**
+         * Adds the attribute of every coffee of the range, with the attribute read hoisted
+         * out of the loop so that each loop calls a single getter.
+         */
+        void addAll(Coffee[] coffees, int from, int to, CoffeeAttribute attribute) {
+            switch (attribute) {
+                case WEIGHT:
+                    for (int i = from; i < to; i++) add(coffees[i].getWeight());
+                    break;
+                case PRICE:
+                    for (int i = from; i < to; i++) add(coffees[i].getPrice());
+                    break;
+                case QUALITY:
+                    for (int i = from; i < to; i++) add(coffees[i].getQuality());
+                    break;
+                case VOLUME:
+                    for (int i = from; i < to; i++) add(coffees[i].getVolume());
+                    break;
+                default:
+                    for (int i = from; i < to; i++) add(attribute.of(coffees[i]));
+            }
+        }
+
+        Accumulator combine(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            return this;
+        }
+
+        CoffeeStatistics toStatistics() {
+            return count == 0 ? EMPTY : new CoffeeStatistics(count, sum, min, max);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared pool of the strings repeated across coffees, such as brands, grind sizes,
+ * countries of origin and package types, and of the type labels built from them.
+ * <p>
+ * Catalogues hold few distinct values for these attributes, so coffees created from
+ * parsed input refer to one canonical instance of each value instead of a copy per
+ * coffee. The pool is thread-safe. It stops accepting new values once it holds
+ * {@value #MAX_POOLED} of them, so that unbounded input cannot make it grow forever;
+ * later values are then used as they are.
+ * </p>
+ */
+final class CoffeeStrings {
+    /** Maximum number of values kept by the pool and by each label table. */
+    static final int MAX_POOLED = 1 << 16;
+
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    private CoffeeStrings() {
+    }
+
+    /**
+     * Returns the canonical instance of a string.
+     *
+     * @param value the string to canonicalize, or null
+     * @return a string equal to the value, shared by every caller, or null if the value is null
+     */
+    static String intern(String value) {
+        if (value == null) return null;
+        String pooled = POOL.get(value);
+        if (pooled != null) return pooled;
+        if (POOL.size() >= MAX_POOLED) return value;
+        pooled = POOL.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * Table of the type labels of one coffee subtype, for example {@code "Ground (Fine)"},
+     * built once per distinct detail.
+     */
+    static final class Labels {
+        private final String prefix;
+        private final ConcurrentHashMap<String, String> labels = new ConcurrentHashMap<>();
+
+        Labels(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Returns the label of the subtype with the specified detail.
+         *
+         * @param detail the grind size, country of origin or package type
+         * @return the shared label
+         */
+        String of(String detail) {
+            String label = labels.get(detail);
+            if (label != null) return label;
+            label = prefix + " (" + detail + ")";
+            if (labels.size() >= MAX_POOLED) return label;
+            String existing = labels.putIfAbsent(detail, label);
+            return existing == null ? label : existing;
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.example;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.RandomAccess;
+
+/**
+ * Column-oriented list of coffees that stores each attribute in its own primitive array
+ * instead of keeping one object per coffee.
+ * <p>
+ * Weight, price, quality and volume live in parallel {@code double[]} columns, the kind
+ * of each coffee is a one-byte tag, and the brand and the subtype-specific detail are
+ * dictionary-encoded as {@code int} ids. A coffee therefore costs 41 bytes of column
+ * data plus its share of the dictionaries, and scans over one attribute read a single
+ * contiguous array.
+ * </p>
+ * <p>
+ * The list can be used as a regular {@code List<Coffee>}: {@link #get(int)} builds a new
+ * coffee object from the columns. Scans that do not need objects should use the
+ * column accessors, the aggregates such as {@link #sum(CoffeeAttribute)}, or a
+ * reusable {@link Cursor}, which reads the columns in place without allocating.
+ * </p>
+ */
+public class ColumnarCoffeeList extends AbstractList<Coffee> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 15;
+
+    private final StringDictionary strings = new StringDictionary();
+    private double[] weights;
+    private double[] prices;
+    private double[] qualities;
+    private double[] volumes;
+    private byte[] kinds;
+    private int[] brands;
+    private int[] details;
+    private int size;
+
+    /**
+     * Default constructor that initializes the list with an initial capacity.
+     */
+    public ColumnarCoffeeList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor that initializes the list with the specified initial capacity.
+     *
+     * @param initialCapacity the initial capacity of the columns.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public ColumnarCoffeeList(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("Initial capacity cannot be negative.");
+        weights = new double[initialCapacity];
+        prices = new double[initialCapacity];
+        qualities = new double[initialCapacity];
+        volumes = new double[initialCapacity];
+        kinds = new byte[initialCapacity];
+        brands = new int[initialCapacity];
+        details = new int[initialCapacity];
+    }
+
+    /**
+     * Constructor that initializes the list with a collection of Coffee objects.
+     *
+     * @param coffees the coffees to store, in order.
+     */
+    public ColumnarCoffeeList(Collection<? extends Coffee> coffees) {
+        this(coffees.size());
+        addAll(coffees);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Builds the coffee stored at the specified position.
+     *
+     * @param index the position of the coffee
+     * @return a new coffee object holding the stored values
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size)
+     */
+    @Override
+    public Coffee get(int index) {
+        checkIndex(index);
+        return materialize(index);
+    }
+
+    @Override
+    public Coffee set(int index, Coffee element) {
+        checkIndex(index);
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        CoffeeKind kind = CoffeeKind.of(element);
+        Coffee oldValue = materialize(index);
+        store(index, element, kind);
+        return oldValue;
+    }
+
+    @Override
+    public void add(int index, Coffee element) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        CoffeeKind kind = CoffeeKind.of(element);
+        ensureCapacity(size + 1);
+        int numMoved = size - index;
+        if (numMoved > 0) {
+            System.arraycopy(weights, index, weights, index + 1, numMoved);
+            System.arraycopy(prices, index, prices, index + 1, numMoved);
+            System.arraycopy(qualities, index, qualities, index + 1, numMoved);
+            System.arraycopy(volumes, index, volumes, index + 1, numMoved);
+            System.arraycopy(kinds, index, kinds, index + 1, numMoved);
+            System.arraycopy(brands, index, brands, index + 1, numMoved);
+            System.arraycopy(details, index, details, index + 1, numMoved);
+        }
+        store(index, element, kind);
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Coffee remove(int index) {
+        checkIndex(index);
+        Coffee removed = materialize(index);
+        int numMoved = size - index - 1;
+        if (numMoved > 0) {
+            System.arraycopy(weights, index + 1, weights, index, numMoved);
+            System.arraycopy(prices, index + 1, prices, index, numMoved);
+            System.arraycopy(qualities, index + 1, qualities, index, numMoved);
+            System.arraycopy(volumes, index + 1, volumes, index, numMoved);
+            System.arraycopy(kinds, index + 1, kinds, index, numMoved);
+            System.arraycopy(brands, index + 1, brands, index, numMoved);
+            System.arraycopy(details, index + 1, details, index, numMoved);
+        }
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        strings.clear();
+        modCount++;
+    }
+
+    /**
+     * Increases the capacity of the columns, if necessary, so that they can hold at least
+     * the specified number of coffees.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= weights.length) return;
+        int newCapacity = Math.max(GrowthPolicy.DEFAULT.grow(weights.length, minCapacity), minCapacity);
+        newCapacity = Math.max(newCapacity, INITIAL_CAPACITY);
+        weights = Arrays.copyOf(weights, newCapacity);
+        prices = Arrays.copyOf(prices, newCapacity);
+        qualities = Arrays.copyOf(qualities, newCapacity);
+        volumes = Arrays.copyOf(volumes, newCapacity);
+        kinds = Arrays.copyOf(kinds, newCapacity);
+        brands = Arrays.copyOf(brands, newCapacity);
+        details = Arrays.copyOf(details, newCapacity);
+    }
+
+    /**
+     * Returns the value of an attribute of the coffee at the specified position without
+     * building the coffee.
+     *
+     * @param attribute the attribute to read
+     * @param index     the position of the coffee
+     * @return the value of the attribute
+     */
+    public double valueAt(CoffeeAttribute attribute, int index) {
+        checkIndex(index);
+        switch (attribute) {
+            case WEIGHT:
+                return weights[index];
+            case PRICE:
+                return prices[index];
+            case QUALITY:
+                return qualities[index];
+            case VOLUME:
+                return volumes[index];
+            default:
+                return prices[index] / weights[index];
+        }
+    }
+
+    /**
+     * Returns the kind of the coffee at the specified position.
+     *
+     * @param index the position of the coffee
+     * @return the kind of the coffee
+     */
+    public CoffeeKind kindAt(int index) {
+        checkIndex(index);
+        return CoffeeKind.fromTag(kinds[index]);
+    }
+
+    /**
+     * Returns the brand of the coffee at the specified position.
+     *
+     * @param index the position of the coffee
+     * @return the brand of the coffee
+     */
+    public String brandAt(int index) {
+        checkIndex(index);
+        return strings.get(brands[index]);
+    }
+
+    /**
+     * Returns the subtype-specific detail of the coffee at the specified position.
+     *
+     * @param index the position of the coffee
+     * @return the country of origin, grind size or package type of the coffee
+     */
+    public String detailAt(int index) {
+        checkIndex(index);
+        return strings.get(details[index]);
+    }
+
+    /**
+     * Returns a copy of the column holding the specified attribute.
+     *
+     * @param attribute the attribute to copy
+     * @return an array with the attribute of every coffee, in list order
+     */
+    public double[] column(CoffeeAttribute attribute) {
+        switch (attribute) {
+            case WEIGHT:
+                return Arrays.copyOf(weights, size);
+            case PRICE:
+                return Arrays.copyOf(prices, size);
+            case QUALITY:
+                return Arrays.copyOf(qualities, size);
+            case VOLUME:
+                return Arrays.copyOf(volumes, size);
+            default:
+                double[] ratios = new double[size];
+                for (int i = 0; i < size; i++) {
+                    ratios[i] = prices[i] / weights[i];
+                }
+                return ratios;
+        }
+    }
+
+    /**
+     * Sums an attribute over all coffees with a single scan of its column.
+     *
+     * @param attribute the attribute to sum
+     * @return the sum of the attribute
+     */
+    public double sum(CoffeeAttribute attribute) {
+        double total = 0;
+        if (attribute == CoffeeAttribute.PRICE_TO_WEIGHT) {
+            for (int i = 0; i < size; i++) {
+                total += prices[i] / weights[i];
+            }
+            return total;
+        }
+        double[] column = columnOf(attribute);
+        for (int i = 0; i < size; i++) {
+            total += column[i];
+        }
+        return total;
+    }
+
+    /**
+     * Averages an attribute over all coffees with a single scan of its column.
+     *
+     * @param attribute the attribute to average
+     * @return the mean of the attribute, or NaN if the list is empty
+     */
+    public double average(CoffeeAttribute attribute) {
+        return size == 0 ? Double.NaN : sum(attribute) / size;
+    }
+
+    /**
+     * Counts the coffees of the specified brand by comparing dictionary ids.
+     *
+     * @param brand the brand to count
+     * @return the number of coffees of that brand
+     */
+    public int countBrand(String brand) {
+        int id = strings.find(brand);
+        if (id < 0) return 0;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (brands[i] == id) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a cursor positioned before the first coffee.
+     *
+     * @return a new cursor over this list
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private double[] columnOf(CoffeeAttribute attribute) {
+        switch (attribute) {
+            case WEIGHT:
+                return weights;
+            case PRICE:
+                return prices;
+            case QUALITY:
+                return qualities;
+            case VOLUME:
+                return volumes;
+            default:
+                throw new IllegalArgumentException("Attribute is not stored as a column: " + attribute);
+        }
+    }
+
+    /**
+     * Writes a coffee into the columns. The kind is resolved by the caller before any
+     * column is changed, so an unsupported coffee leaves the list untouched.
+     */
+    private void store(int index, Coffee coffee, CoffeeKind kind) {
+        weights[index] = coffee.getWeight();
+        prices[index] = coffee.getPrice();
+        qualities[index] = coffee.getQuality();
+        volumes[index] = coffee.getVolume();
+        kinds[index] = kind.tag();
+        brands[index] = strings.idOf(coffee.getBrand());
+        details[index] = strings.idOf(kind.detailOf(coffee));
+    }
+
+    private Coffee materialize(int index) {
+        return CoffeeKind.fromTag(kinds[index]).create(weights[index], prices[index], qualities[index],
+                strings.get(brands[index]), volumes[index], strings.get(details[index]));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * Flyweight over the rows of the list: a single cursor is moved from row to row and
+     * reads the columns in place, so scanning the list through it allocates nothing.
+     * <p>
+     * The accessors throw {@link IndexOutOfBoundsException} unless the cursor is on a
+     * coffee. Like an iterator, the cursor is fail-fast: once the list is structurally
+     * modified, every call except {@link #position()} throws
+     * {@link ConcurrentModificationException}.
+     * </p>
+     */
+    public final class Cursor {
+        private int row = -1;
+        private final int expectedModCount = modCount;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves the cursor to the next coffee.
+         *
+         * @return true if the cursor is on a coffee, false if it moved past the last one
+         */
+        public boolean next() {
+            checkForComodification();
+            if (row < size) row++;
+            return row < size;
+        }
+
+        /**
+         * Moves the cursor to the specified position.
+         *
+         * @param index the position of the coffee
+         * @return this cursor
+         */
+        public Cursor moveTo(int index) {
+            checkForComodification();
+            checkIndex(index);
+            row = index;
+            return this;
+        }
+
+        /**
+         * Returns the position of the coffee under the cursor.
+         *
+         * @return the current position
+         */
+        public int position() {
+            return row;
+        }
+
+        /**
+         * Returns the weight of the coffee under the cursor.
+         *
+         * @return the weight
+         */
+        public double weight() {
+            checkRow();
+            return weights[row];
+        }
+
+        /**
+         * Returns the price of the coffee under the cursor.
+         *
+         * @return the price
+         */
+        public double price() {
+            checkRow();
+            return prices[row];
+        }
+
+        /**
+         * Returns the quality rating of the coffee under the cursor.
+         *
+         * @return the quality rating
+         */
+        public double quality() {
+            checkRow();
+            return qualities[row];
+        }
+
+        /**
+         * Returns the volume of the coffee under the cursor.
+         *
+         * @return the volume
+         */
+        public double volume() {
+            checkRow();
+            return volumes[row];
+        }
+
+        /**
+         * Returns the price-to-weight ratio of the coffee under the cursor.
+         *
+         * @return the price-to-weight ratio
+         */
+        public double priceToWeightRatio() {
+            checkRow();
+            return prices[row] / weights[row];
+        }
+
+        /**
+         * Returns the kind of the coffee under the cursor.
+         *
+         * @return the kind
+         */
+        public CoffeeKind kind() {
+            checkRow();
+            return CoffeeKind.fromTag(kinds[row]);
+        }
+
+        /**
+         * Returns the brand of the coffee under the cursor.
+         *
+         * @return the brand
+         */
+        public String brand() {
+            checkRow();
+            return strings.get(brands[row]);
+        }
+
+        /**
+         * Returns the subtype-specific detail of the coffee under the cursor.
+         *
+         * @return the country of origin, grind size or package type
+         */
+        public String detail() {
+            checkRow();
+            return strings.get(details[row]);
+        }
+
+        /**
+         * Builds the coffee under the cursor.
+         *
+         * @return a new coffee object holding the stored values
+         */
+        public Coffee toCoffee() {
+            checkRow();
+            return materialize(row);
+        }
+
+        private void checkRow() {
+            checkForComodification();
+            checkIndex(row);
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.example;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread-safe list of coffees for catalogues read by many threads and updated by few.
+ * <p>
+ * The list publishes its contents as an immutable snapshot of the internal array
+ * and the element count through a single volatile field. Readers never lock: every read
+ * operation works on the snapshot it loaded, so {@code get}, {@code size}, lookups,
+ * iteration and streams scale with the number of reader threads. Writers are serialized
+ * by a {@link StampedLock}.
+ * </p>
+ * <p>
+ * Appending writes past the end of the current snapshot, which no reader can see, so it
+ * is O(1) amortized. Every other edit, replacements included, copies the array, so that
+ * snapshots held by readers never change; several edits can be grouped into one copy
+ * with {@link #batch(Consumer)}, and bulk insertions at a position, {@code sort} and
+ * {@code replaceAll} also work on one copy and publish it at once. Iterators and
+ * spliterators traverse the snapshot taken when they were created and never throw
+ * {@link java.util.ConcurrentModificationException}. They do not support modification,
+ * and {@link #subList(int, int)} returns a read-only view of a snapshot.
+ * </p>
+ */
+public class ConcurrentCoffeeList extends AbstractList<Coffee> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 15;
+    private static final int HASHED_LOOKUP_THRESHOLD = 16;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Snapshot snapshot;
+    private volatile Thread batchOwner;
+
+    /**
+     * Default constructor that initializes the list with an initial capacity.
+     */
+    public ConcurrentCoffeeList() {
+        snapshot = new Snapshot(new Coffee[INITIAL_CAPACITY], 0);
+    }
+
+    /**
+     * Constructor that initializes the list with a collection of Coffee objects.
+     *
+     * @param coffees the coffees to add, in order.
+     */
+    public ConcurrentCoffeeList(Collection<? extends Coffee> coffees) {
+        Coffee[] elements = checkedArray(coffees);
+        snapshot = new Snapshot(elements, elements.length);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public Coffee get(int index) {
+        Snapshot s = snapshot;
+        if (index < 0 || index >= s.size) throw new IndexOutOfBoundsException();
+        return s.elements[index];
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o == null) return -1;
+        Snapshot s = snapshot;
+        for (int i = 0; i < s.size; i++) {
+            if (o.equals(s.elements[i])) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (o == null) return -1;
+        Snapshot s = snapshot;
+        for (int i = s.size - 1; i >= 0; i--) {
+            if (o.equals(s.elements[i])) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Snapshot s = snapshot;
+        return Arrays.copyOf(s.elements, s.size, Object[].class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Snapshot s = snapshot;
+        if (a.length < s.size) {
+            return (T[]) Arrays.copyOf(s.elements, s.size, a.getClass());
+        }
+        System.arraycopy(s.elements, 0, a, 0, s.size);
+        if (a.length > s.size) a[s.size] = null;
+        return a;
+    }
+
+    @Override
+    public Iterator<Coffee> iterator() {
+        return snapshot.asList().iterator();
+    }
+
+    @Override
+    public ListIterator<Coffee> listIterator(int index) {
+        return snapshot.asList().listIterator(index);
+    }
+
+    @Override
+    public Spliterator<Coffee> spliterator() {
+        Snapshot s = snapshot;
+        return Spliterators.spliterator(s.elements, 0, s.size, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Coffee> action) {
+        if (action == null) throw new NullPointerException("Action cannot be null.");
+        Snapshot s = snapshot;
+        for (int i = 0; i < s.size; i++) {
+            action.accept(s.elements[i]);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the portion of the current snapshot between the
+     * specified indexes. Later modifications of this list do not affect the view, and it
+     * cannot be used to modify this list.
+     *
+     * @param fromIndex index of the first element (inclusive) in the view
+     * @param toIndex   index of the last element (exclusive) in the view
+     * @return a read-only view of the specified range of the current contents
+     * @throws IndexOutOfBoundsException if the indexes are out of range
+     */
+    @Override
+    public List<Coffee> subList(int fromIndex, int toIndex) {
+        return snapshot.asList().subList(fromIndex, toIndex);
+    }
+
+    /**
+     * Returns the current contents of the list as a read-only view that later
+     * modifications of this list do not affect.
+     *
+     * @return a read-only view of the current contents
+     */
+    public List<Coffee> snapshot() {
+        return snapshot.asList();
+    }
+
+    @Override
+    public boolean add(Coffee coffee) {
+        if (coffee == null) throw new NullPointerException("Coffee cannot be null.");
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            Coffee[] elements = s.elements;
+            if (s.size == elements.length) {
+                elements = Arrays.copyOf(elements, newCapacity(elements.length, s.size + 1));
+            }
+            elements[s.size] = coffee;
+            snapshot = new Snapshot(elements, s.size + 1);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Coffee> c) {
+        Coffee[] added = checkedArray(c);
+        if (added.length == 0) return false;
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            Coffee[] elements = s.elements;
+            int newSize = s.size + added.length;
+            if (newSize < 0) throw new OutOfMemoryError("Required array length is too large.");
+            if (newSize > elements.length) {
+                elements = Arrays.copyOf(elements, newCapacity(elements.length, newSize));
+            }
+            System.arraycopy(added, 0, elements, s.size, added.length);
+            snapshot = new Snapshot(elements, newSize);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Coffee> c) {
+        Coffee[] added = checkedArray(c);
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            if (index < 0 || index > s.size) throw new IndexOutOfBoundsException();
+            if (added.length == 0) return false;
+            int newSize = s.size + added.length;
+            if (newSize < 0) throw new OutOfMemoryError("Required array length is too large.");
+            Coffee[] elements = new Coffee[newSize > s.elements.length
+                    ? newCapacity(s.elements.length, newSize) : s.elements.length];
+            System.arraycopy(s.elements, 0, elements, 0, index);
+            System.arraycopy(added, 0, elements, index, added.length);
+            System.arraycopy(s.elements, index, elements, index + added.length, s.size - index);
+            snapshot = new Snapshot(elements, newSize);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Coffee set(int index, Coffee element) {
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            if (index < 0 || index >= s.size) throw new IndexOutOfBoundsException();
+            Coffee oldValue = s.elements[index];
+            Coffee[] elements = Arrays.copyOf(s.elements, s.elements.length);
+            elements[index] = element;
+            snapshot = new Snapshot(elements, s.size);
+            return oldValue;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void add(int index, Coffee element) {
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            if (index < 0 || index > s.size) throw new IndexOutOfBoundsException();
+            int capacity = s.size < s.elements.length ? s.elements.length : newCapacity(s.elements.length, s.size + 1);
+            Coffee[] elements = new Coffee[capacity];
+            System.arraycopy(s.elements, 0, elements, 0, index);
+            elements[index] = element;
+            System.arraycopy(s.elements, index, elements, index + 1, s.size - index);
+            snapshot = new Snapshot(elements, s.size + 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Coffee remove(int index) {
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            if (index < 0 || index >= s.size) throw new IndexOutOfBoundsException();
+            Coffee removed = s.elements[index];
+            Coffee[] elements = new Coffee[s.elements.length];
+            System.arraycopy(s.elements, 0, elements, 0, index);
+            System.arraycopy(s.elements, index + 1, elements, index, s.size - index - 1);
+            snapshot = new Snapshot(elements, s.size - 1);
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) return false;
+        long stamp = writeLock();
+        try {
+            int index = indexOf(o);
+            if (index < 0) return false;
+            Snapshot s = snapshot;
+            Coffee[] elements = new Coffee[s.elements.length];
+            System.arraycopy(s.elements, 0, elements, 0, index);
+            System.arraycopy(s.elements, index + 1, elements, index, s.size - index - 1);
+            snapshot = new Snapshot(elements, s.size - 1);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Coffee> filter) {
+        if (filter == null) throw new NullPointerException("Filter cannot be null.");
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            Coffee[] elements = new Coffee[s.elements.length];
+            int kept = 0;
+            for (int i = 0; i < s.size; i++) {
+                if (!filter.test(s.elements[i])) elements[kept++] = s.elements[i];
+            }
+            if (kept == s.size) return false;
+            snapshot = new Snapshot(elements, kept);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException("Collection cannot be null.");
+        Collection<?> lookup = lookupOf(c);
+        return removeIf(lookup::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException("Collection cannot be null.");
+        Collection<?> lookup = lookupOf(c);
+        return removeIf(coffee -> !lookup.contains(coffee));
+    }
+
+    /**
+     * Sorts this list according to the specified comparator. The coffees are sorted in a
+     * copy of the array, which is published once sorted, so readers see either the old or
+     * the new order. The sort is stable.
+     *
+     * @param c the comparator to sort by
+     */
+    @Override
+    public void sort(Comparator<? super Coffee> c) {
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            Coffee[] elements = Arrays.copyOf(s.elements, s.elements.length);
+            Arrays.sort(elements, 0, s.size, c);
+            snapshot = new Snapshot(elements, s.size);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces every coffee by the result of the operator. The results are collected in a
+     * copy of the array, which is published once complete, so readers see either none or
+     * all of the replacements. If the operator throws or returns null, the list is left
+     * unchanged.
+     *
+     * @param operator the operator computing the replacement of every coffee
+     */
+    @Override
+    public void replaceAll(UnaryOperator<Coffee> operator) {
+        if (operator == null) throw new NullPointerException("Operator cannot be null.");
+        long stamp = writeLock();
+        try {
+            Snapshot s = snapshot;
+            Coffee[] elements = new Coffee[s.elements.length];
+            for (int i = 0; i < s.size; i++) {
+                Coffee replacement = operator.apply(s.elements[i]);
+                if (replacement == null) throw new NullPointerException("Coffee cannot be null.");
+                elements[i] = replacement;
+            }
+            snapshot = new Snapshot(elements, s.size);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long stamp = writeLock();
+        try {
+            snapshot = new Snapshot(new Coffee[INITIAL_CAPACITY], 0);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies a group of edits atomically: readers see either none or all of them.
+     * The edits run on a private working copy of the list, which is copied back and
+     * published once they complete, so any number of insertions and removals costs two
+     * copies of the array. If the edits throw, the list is left unchanged.
+     * <p>
+     * The edits must only modify the working copy: the write lock is not reentrant, so
+     * modifying this list from within the edits throws {@link IllegalStateException}
+     * instead of deadlocking. Reading this list from within the edits is allowed and sees
+     * its contents before the batch.
+     * </p>
+     *
+     * @param edits the edits to apply to the working copy
+     * @throws IllegalStateException if the edits modify this list
+     */
+    public void batch(Consumer<? super CoffeeList> edits) {
+        if (edits == null) throw new NullPointerException("Edits cannot be null.");
+        long stamp = writeLock();
+        try {
+            batchOwner = Thread.currentThread();
+            CoffeeList working = new CoffeeList(snapshot.asList());
+            edits.accept(working);
+            Coffee[] elements = working.toArray(new Coffee[0]);
+            snapshot = new Snapshot(elements, elements.length);
+        } finally {
+            batchOwner = null;
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Acquires the write lock, failing fast if the current thread already holds it
+     * for a batch.
+     */
+    private long writeLock() {
+        if (batchOwner == Thread.currentThread()) {
+            throw new IllegalStateException("The list cannot be modified from within batch edits.");
+        }
+        return lock.writeLock();
+    }
+
+    /**
+     * Returns a collection with a fast {@code contains} holding the same elements as the
+     * specified collection. Sets are used as they are; other collections larger than
+     * {@link #HASHED_LOOKUP_THRESHOLD} are copied into a {@link HashSet}.
+     */
+    private static Collection<?> lookupOf(Collection<?> c) {
+        if (c instanceof Set || c.size() <= HASHED_LOOKUP_THRESHOLD) return c;
+        return new HashSet<>(c);
+    }
+
+    private static Coffee[] checkedArray(Collection<? extends Coffee> coffees) {
+        if (coffees == null) throw new NullPointerException("Collection of coffees cannot be null.");
+        Coffee[] elements = coffees.toArray(new Coffee[0]);
+        for (Coffee coffee : elements) {
+            if (coffee == null) throw new NullPointerException("Coffee cannot be null.");
+        }
+        return elements;
+    }
+
+    private static int newCapacity(int capacity, int minCapacity) {
+        return Math.max(Math.max(GrowthPolicy.DEFAULT.grow(capacity, minCapacity), minCapacity), INITIAL_CAPACITY);
+    }
+
+    /**
+     * Internal array and element count published together. Slots below {@code size} are
+     * never written once the snapshot is published.
+     */
+    private static final class Snapshot {
+        private final Coffee[] elements;
+        private final int size;
+
+        Snapshot(Coffee[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        List<Coffee> asList() {
+            return Collections.unmodifiableList(Arrays.asList(elements).subList(0, size));
+        }
+    }
+}
@@ -8,8 +8,9 @@ import java.util.List;
  */
 public class GroundCoffee extends Coffee {
     
-    private String grindSize;
+    private final String grindSize;
     private static final List<String> VALID_GRIND_SIZES = Arrays.asList("Fine", "Medium", "Coarse");
+    private static final CoffeeStrings.Labels TYPE_LABELS = new CoffeeStrings.Labels("Ground");
 
     /**
      * Constructs a {@code GroundCoffee} object with specified attributes.
@@ -24,7 +25,7 @@ public class GroundCoffee extends Coffee {
      */
     public GroundCoffee(double weight, double price, double quality, String brand, double volume, String grindSize) {
         super(weight, price, quality, brand, volume);
-        setGrindSize(grindSize);
+        this.grindSize = validGrindSize(grindSize);
     }
 
     /**
@@ -37,25 +38,47 @@ public class GroundCoffee extends Coffee {
     }
 
     /**
-     * Sets the grind size of the coffee.
+     * Validates the grind size of the coffee with a switch on the string, which compares
+     * hash codes instead of scanning the list of valid sizes.
      *
-     * @param grindSize the grind size to set
+     * @param grindSize the grind size to check
+     * @return the canonical instance of the grind size
      * @throws IllegalArgumentException if the specified grind size is not valid
      */
-    private void setGrindSize(String grindSize) {
-        if (!VALID_GRIND_SIZES.contains(grindSize)) {
-            throw new IllegalArgumentException("Invalid grind size. Valid options are: " + VALID_GRIND_SIZES);
+    private static String validGrindSize(String grindSize) {
+        if (grindSize != null) {
+            switch (grindSize) {
+                case "Fine":
+                    return "Fine";
+                case "Medium":
+                    return "Medium";
+                case "Coarse":
+                    return "Coarse";
+                default:
+                    break;
+            }
         }
-        this.grindSize = grindSize;
+        throw new IllegalArgumentException("Invalid grind size. Valid options are: " + VALID_GRIND_SIZES);
     }
 
     /**
-     * Returns the type of coffee, including the grind size.
+     * Returns the type of coffee, including the grind size. The label is built once
+     * per grind size and shared by all ground coffees with that grind size.
      *
      * @return a string representation of the coffee type, including the grind size
      */
     @Override
     public String getType() {
-        return "Ground (" + grindSize + ")";
+        return TYPE_LABELS.of(grindSize);
+    }
+
+    @Override
+    protected boolean detailEquals(Coffee other) {
+        return grindSize.equals(((GroundCoffee) other).grindSize);
+    }
+
+    @Override
+    protected int detailHashCode() {
+        return grindSize.hashCode();
     }
 }
@@ -0,0 +1,75 @@
+package com.example;
+/**
+ * Strategy deciding how much the internal array of a {@link CoffeeList} grows when it
+ * runs out of room.
+ * <p>
+ * The list always allocates at least the capacity it needs, so a policy only decides how
+ * much slack to add on top of it. Three common strategies are provided as factory methods:
+ * multiplicative growth, doubling, and growth in fixed-size chunks.
+ * </p>
+ */
+@FunctionalInterface
+public interface GrowthPolicy {
+
+    /**
+     * Growth policy used by default: the array grows by 30% of its current size.
+     */
+    GrowthPolicy DEFAULT = multiplicative(1.3);
+
+    /**
+     * Returns the new capacity of an internal array that must hold at least
+     * {@code minCapacity} elements.
+     *
+     * @param currentCapacity the current length of the internal array
+     * @param minCapacity     the number of elements the array must be able to hold
+     * @return the proposed new capacity; values smaller than {@code minCapacity}
+     *         are raised to {@code minCapacity} by the list
+     */
+    int grow(int currentCapacity, int minCapacity);
+
+    /**
+     * Returns a policy that multiplies the current capacity by the given factor.
+     *
+     * @param factor the growth factor, greater than 1
+     * @return a multiplicative growth policy
+     * @throws IllegalArgumentException if the factor is not greater than 1
+     */
+    static GrowthPolicy multiplicative(double factor) {
+        if (!(factor > 1)) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1.");
+        }
+        return (currentCapacity, minCapacity) -> {
+            double grown = currentCapacity * factor;
+            return grown >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) grown;
+        };
+    }
+
+    /**
+     * Returns a policy that doubles the current capacity.
+     *
+     * @return a doubling growth policy
+     */
+    static GrowthPolicy doubling() {
+        return (currentCapacity, minCapacity) -> currentCapacity > Integer.MAX_VALUE / 2
+                ? Integer.MAX_VALUE
+                : currentCapacity * 2;
+    }
+
+    /**
+     * Returns a policy that grows the array in steps of a fixed number of elements,
+     * rounding the required capacity up to the next multiple of the chunk size.
+     *
+     * @param chunkSize the number of elements added per step
+     * @return a chunked growth policy
+     * @throws IllegalArgumentException if the chunk size is not positive
+     */
+    static GrowthPolicy chunked(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        return (currentCapacity, minCapacity) -> {
+            long rounded = ((long) minCapacity + chunkSize - 1) / chunkSize * chunkSize;
+            return (int) Math.min(rounded, Integer.MAX_VALUE);
+        };
+    }
+}
@@ -0,0 +1,328 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Indexed view over a {@link CoffeeList} that answers attribute queries without scanning
+ * the whole list.
+ * <p>
+ * The view keeps hash indexes on the brand and on the subtype-specific attributes
+ * (grind size of {@link GroundCoffee}, country of origin of {@link WholeBeanCoffee} and
+ * package type of {@link InstantCoffee}), which makes equality lookups O(1). It also keeps
+ * a sorted index on every {@link CoffeeAttribute}, so range queries run in O(log n + k)
+ * for k matching coffees. The indexes are updated incrementally on every modification of
+ * the underlying list until the view is closed.
+ * </p>
+ * <p>
+ * Query results are new lists holding every matching element of the underlying list,
+ * including duplicates. No order is guaranteed: the results follow neither the order
+ * of the list nor the order in which the coffees were added.
+ * </p>
+ */
+public class IndexedCoffeeView implements AutoCloseable {
+    private final CoffeeList list;
+    private final HashIndex brands = new HashIndex(Coffee::getBrand);
+    private final HashIndex grindSizes = new HashIndex(
+            coffee -> coffee instanceof GroundCoffee ? ((GroundCoffee) coffee).getGrindSize() : null);
+    private final HashIndex countries = new HashIndex(
+            coffee -> coffee instanceof WholeBeanCoffee ? ((WholeBeanCoffee) coffee).getCountryOfOrigin() : null);
+    private final HashIndex packageTypes = new HashIndex(
+            coffee -> coffee instanceof InstantCoffee ? ((InstantCoffee) coffee).getPackageType() : null);
+    private final Map<CoffeeAttribute, RangeIndex> ranges = new EnumMap<>(CoffeeAttribute.class);
+    private final Maintainer maintainer = new Maintainer();
+
+    /**
+     * Creates an indexed view over the specified list and indexes its current elements.
+     *
+     * @param list the list to index
+     */
+    public IndexedCoffeeView(CoffeeList list) {
+        if (list == null) throw new NullPointerException("Coffee list cannot be null.");
+        this.list = list;
+        for (CoffeeAttribute attribute : CoffeeAttribute.values()) {
+            ranges.put(attribute, new RangeIndex(attribute));
+        }
+        for (Coffee coffee : list) {
+            maintainer.index(coffee);
+        }
+        list.addListener(maintainer);
+    }
+
+    /**
+     * Returns the list this view indexes.
+     *
+     * @return the underlying list
+     */
+    public CoffeeList getList() {
+        return list;
+    }
+
+    /**
+     * Returns all coffees of the specified brand.
+     *
+     * @param brand the brand to look up
+     * @return the coffees of that brand, in no particular order
+     */
+    public List<Coffee> byBrand(String brand) {
+        return brands.get(brand);
+    }
+
+    /**
+     * Returns all ground coffees with the specified grind size.
+     *
+     * @param grindSize the grind size to look up
+     * @return the ground coffees with that grind size, in no particular order
+     */
+    public List<Coffee> byGrindSize(String grindSize) {
+        return grindSizes.get(grindSize);
+    }
+
+    /**
+     * Returns all whole bean coffees from the specified country.
+     *
+     * @param countryOfOrigin the country of origin to look up
+     * @return the whole bean coffees from that country, in no particular order
+     */
+    public List<Coffee> byCountryOfOrigin(String countryOfOrigin) {
+        return countries.get(countryOfOrigin);
+    }
+
+    /**
+     * Returns all instant coffees sold in the specified package type.
+     *
+     * @param packageType the package type to look up
+     * @return the instant coffees sold in that package type, in no particular order
+     */
+    public List<Coffee> byPackageType(String packageType) {
+        return packageTypes.get(packageType);
+    }
+
+    /**
+     * Returns all coffees whose attribute lies within the specified range, bounds included.
+     *
+     * @param attribute the attribute to query
+     * @param from      the lowest accepted value
+     * @param to        the highest accepted value
+     * @return the coffees whose attribute lies in {@code [from, to]}, in no particular order
+     */
+    public List<Coffee> inRange(CoffeeAttribute attribute, double from, double to) {
+        if (attribute == null) throw new NullPointerException("Attribute cannot be null.");
+        return ranges.get(attribute).between(from, to);
+    }
+
+    /**
+     * Returns the number of coffees of the specified brand.
+     */
+    int countBrand(String brand) {
+        return brands.count(brand);
+    }
+
+    /**
+     * Returns all coffees of the specified kind with the specified subtype detail.
+     */
+    List<Coffee> byDetail(CoffeeKind kind, String detail) {
+        return detailIndex(kind).get(detail);
+    }
+
+    /**
+     * Returns the number of coffees of the specified kind with the specified subtype detail.
+     */
+    int countDetail(CoffeeKind kind, String detail) {
+        return detailIndex(kind).count(detail);
+    }
+
+    /**
+     * Returns the number of coffees whose attribute lies within the specified range, bounds included.
+     * Counting walks the distinct values in the range and stops once the limit is reached, in which
+     * case a number not lower than the limit is returned.
+     */
+    int countInRange(CoffeeAttribute attribute, double from, double to, int limit) {
+        return ranges.get(attribute).count(from, to, limit);
+    }
+
+    private HashIndex detailIndex(CoffeeKind kind) {
+        switch (kind) {
+            case GROUND:
+                return grindSizes;
+            case WHOLE_BEAN:
+                return countries;
+            default:
+                return packageTypes;
+        }
+    }
+
+    /**
+     * Stops maintaining the indexes. The view must not be queried afterwards.
+     */
+    @Override
+    public void close() {
+        list.removeListener(maintainer);
+    }
+
+    /**
+     * Updates every index on modifications of the underlying list.
+     */
+    private final class Maintainer implements CoffeeListListener {
+
+        void index(Coffee coffee) {
+            brands.add(coffee);
+            grindSizes.add(coffee);
+            countries.add(coffee);
+            packageTypes.add(coffee);
+            for (RangeIndex range : ranges.values()) range.add(coffee);
+        }
+
+        void unindex(Coffee coffee) {
+            brands.remove(coffee);
+            grindSizes.remove(coffee);
+            countries.remove(coffee);
+            packageTypes.remove(coffee);
+            for (RangeIndex range : ranges.values()) range.remove(coffee);
+        }
+
+        @Override
+        public void added(int index, Coffee coffee) {
+            index(coffee);
+        }
+
+        @Override
+        public void removed(int index, Coffee coffee) {
+            unindex(coffee);
+        }
+
+        @Override
+        public void replaced(int index, Coffee oldValue, Coffee replacement) {
+            unindex(oldValue);
+            index(replacement);
+        }
+
+        @Override
+        public void cleared() {
+            brands.clear();
+            grindSizes.clear();
+            countries.clear();
+            packageTypes.clear();
+            for (RangeIndex range : ranges.values()) range.clear();
+        }
+    }
+
+    /**
+     * Hash index on a string key; coffees whose key is null are not indexed.
+     */
+    private static final class HashIndex {
+        private final Function<Coffee, String> key;
+        private final Map<String, Bucket> buckets = new HashMap<>();
+
+        HashIndex(Function<Coffee, String> key) {
+            this.key = key;
+        }
+
+        void add(Coffee coffee) {
+            String k = key.apply(coffee);
+            if (k != null) buckets.computeIfAbsent(k, x -> new Bucket()).add(coffee);
+        }
+
+        void remove(Coffee coffee) {
+            String k = key.apply(coffee);
+            if (k != null && buckets.get(k).remove(coffee)) buckets.remove(k);
+        }
+
+        void clear() {
+            buckets.clear();
+        }
+
+        int count(String k) {
+            Bucket bucket = buckets.get(k);
+            return bucket == null ? 0 : bucket.size;
+        }
+
+        List<Coffee> get(String k) {
+            Bucket bucket = buckets.get(k);
+            List<Coffee> result = new ArrayList<>(bucket == null ? 0 : bucket.size);
+            if (bucket != null) bucket.copyTo(result);
+            return result;
+        }
+    }
+
+    /**
+     * Sorted index on a numeric attribute.
+     */
+    private static final class RangeIndex {
+        private final CoffeeAttribute attribute;
+        private final NavigableMap<Double, Bucket> buckets = new TreeMap<>();
+
+        RangeIndex(CoffeeAttribute attribute) {
+            this.attribute = attribute;
+        }
+
+        void add(Coffee coffee) {
+            buckets.computeIfAbsent(attribute.of(coffee), x -> new Bucket()).add(coffee);
+        }
+
+        void remove(Coffee coffee) {
+            double k = attribute.of(coffee);
+            if (buckets.get(k).remove(coffee)) buckets.remove(k);
+        }
+
+        void clear() {
+            buckets.clear();
+        }
+
+        int count(double from, double to, int limit) {
+            if (from > to) return 0;
+            int count = 0;
+            for (Bucket bucket : buckets.subMap(from, true, to, true).values()) {
+                count += bucket.size;
+                if (count >= limit) break;
+            }
+            return count;
+        }
+
+        List<Coffee> between(double from, double to) {
+            List<Coffee> result = new ArrayList<>();
+            if (from > to) return result;
+            Collection<Bucket> matching = buckets.subMap(from, true, to, true).values();
+            for (Bucket bucket : matching) bucket.copyTo(result);
+            return result;
+        }
+    }
+
+    /**
+     * Multiset of coffees compared by identity, so that equal but distinct elements of the
+     * list are tracked separately. Its elements are copied out in identity hash order.
+     */
+    private static final class Bucket {
+        private final Map<Coffee, int[]> counts = new IdentityHashMap<>();
+        private int size;
+
+        void add(Coffee coffee) {
+            counts.computeIfAbsent(coffee, c -> new int[1])[0]++;
+            size++;
+        }
+
+        /**
+         * Removes one occurrence of the coffee.
+         *
+         * @return true if the bucket became empty
+         */
+        boolean remove(Coffee coffee) {
+            int[] count = counts.get(coffee);
+            if (--count[0] == 0) counts.remove(coffee);
+            return --size == 0;
+        }
+
+        void copyTo(List<Coffee> result) {
+            for (Map.Entry<Coffee, int[]> entry : counts.entrySet()) {
+                for (int i = entry.getValue()[0]; i > 0; i--) result.add(entry.getKey());
+            }
+        }
+    }
+}
@@ -5,7 +5,9 @@ package com.example;
  */
 public class InstantCoffee extends Coffee {
     
-    private String packageType;
+    private static final CoffeeStrings.Labels TYPE_LABELS = new CoffeeStrings.Labels("Instant");
+
+    private final String packageType;
 
     /**
      * Constructs an {@code InstantCoffee} object with specified attributes.
@@ -23,7 +25,7 @@ public class InstantCoffee extends Coffee {
         if (packageType == null || packageType.isEmpty()) {
             throw new IllegalArgumentException("Package type cannot be empty.");
         }
-        this.packageType = packageType;
+        this.packageType = CoffeeStrings.intern(packageType);
     }
 
     /**
@@ -36,12 +38,23 @@ public class InstantCoffee extends Coffee {
     }
 
     /**
-     * Returns the type of coffee, including the package type.
+     * Returns the type of coffee, including the package type. The label is built once
+     * per package type and shared by all instant coffees sold in that package type.
      *
      * @return a string representation of the coffee type, including the package type
      */
     @Override
     public String getType() {
-        return "Instant (" + packageType + ")";
+        return TYPE_LABELS.of(packageType);
+    }
+
+    @Override
+    protected boolean detailEquals(Coffee other) {
+        return packageType.equals(((InstantCoffee) other).packageType);
+    }
+
+    @Override
+    protected int detailHashCode() {
+        return packageType.hashCode();
     }
 }
@@ -75,15 +75,11 @@ public class ListApplication {
             System.out.println("\nAfter retainAll(additionalCoffees): ");
             displayCollection(coffeeCollection);
 
-            // Sort the collection by price-to-weight ratio
-            Coffee[] coffeeArray = coffeeCollection.toArray(new Coffee[0]);
-            Arrays.sort(coffeeArray, (c1, c2) -> {
-                double ratio1 = c1.getPriceToWeightRatio();
-                double ratio2 = c2.getPriceToWeightRatio();
-                return Double.compare(ratio1, ratio2);
-            });
+            // Sort a copy of the collection by price-to-weight ratio
+            CoffeeList sortedCoffees = new CoffeeList(coffeeCollection);
+            sortedCoffees.sortBy(CoffeeAttribute.PRICE_TO_WEIGHT);
             System.out.println("\nSorted Coffees by Price-to-Weight Ratio:");
-            for (Coffee coffee : coffeeArray) {
+            for (Coffee coffee : sortedCoffees) {
                 System.out.printf("Type: %s, Brand: %s, Price-to-Weight Ratio: %.2f, Price: %.2f, Weight: %.2f%n", 
                         coffee.getType(), coffee.getBrand(), coffee.getPriceToWeightRatio(), coffee.getPrice(), coffee.getWeight());
             }
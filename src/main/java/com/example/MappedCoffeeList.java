@@ -0,0 +1,323 @@
+package com.example;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append-only list of coffees stored in a memory-mapped file instead of the JVM heap.
+ * <p>
+ * Every coffee is a fixed-width 48-byte record holding its four numeric attributes, the
+ * ids of its brand and subtype detail, and its {@link CoffeeKind} tag. The strings are
+ * interned in a companion file named after the data file with a {@code .strings} suffix.
+ * The data file is mapped in segments of {@value #SEGMENT_RECORDS} records, so the list
+ * is limited by disk space rather than by the heap or the 2 GB limit of a single mapping.
+ * </p>
+ * <p>
+ * Reopening an existing file only maps it and reads the string table, so a catalogue is
+ * available again right after a restart. Coffee objects are built lazily by
+ * {@link #get(int)} and during iteration. The list supports appending, replacing and
+ * clearing; removing single elements is not supported.
+ * </p>
+ * <p>
+ * The record count in the header is only published by {@link #force()} and
+ * {@link #close()}, after the string file and the records it covers have reached the
+ * disk, so a file reopened after a crash never counts records or string ids that were
+ * lost. Coffees appended since the last {@code force()} are dropped by such a crash.
+ * New strings are forced as soon as they are interned, so a replaced record never refers
+ * to a string id the string file does not hold.
+ * </p>
+ */
+public class MappedCoffeeList extends AbstractList<Coffee> implements RandomAccess, Closeable {
+    private static final int MAGIC = 0x434F464D;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_BYTES = 48;
+    private static final int SEGMENT_SHIFT = 20;
+    private static final int SEGMENT_RECORDS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_RECORDS - 1;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_BYTES;
+
+    private static final int WEIGHT = 0;
+    private static final int PRICE = 8;
+    private static final int QUALITY = 16;
+    private static final int VOLUME = 24;
+    private static final int BRAND = 32;
+    private static final int DETAIL = 36;
+    private static final int KIND = 40;
+
+    private final FileChannel data;
+    private final FileChannel stringFile;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final StringDictionary strings = new StringDictionary();
+    private long size;
+
+    /**
+     * Opens the list stored in the specified file, creating an empty one if the file does
+     * not exist.
+     *
+     * @param file the data file of the list
+     * @throws IOException if the files cannot be opened or are not coffee list files
+     */
+    public MappedCoffeeList(Path file) throws IOException {
+        data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Path stringPath = file.resolveSibling(file.getFileName() + ".strings");
+        stringFile = FileChannel.open(stringPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean created = data.size() == 0;
+            header = data.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (created) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a coffee list file: " + file);
+            }
+            size = header.getLong(COUNT_OFFSET);
+            if (size < 0 || size > (data.size() - HEADER_BYTES) / RECORD_BYTES) {
+                throw new IOException("Corrupt record count " + size + " in " + file);
+            }
+            loadStrings();
+            long mappedSegments = (size + SEGMENT_RECORDS - 1) >>> SEGMENT_SHIFT;
+            for (long i = 0; i < mappedSegments; i++) {
+                mapSegment();
+            }
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            stringFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of coffees in the list, capped at {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of coffees
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the exact number of coffees in the list, which may exceed the range of
+     * {@code int}.
+     *
+     * @return the number of coffees
+     */
+    public long longSize() {
+        return size;
+    }
+
+    /**
+     * Builds the coffee stored at the specified position.
+     *
+     * @param index the position of the coffee
+     * @return a new coffee object holding the stored values
+     */
+    @Override
+    public Coffee get(int index) {
+        return get((long) index);
+    }
+
+    /**
+     * Builds the coffee stored at the specified position.
+     *
+     * @param index the position of the coffee
+     * @return a new coffee object holding the stored values
+     * @throws IndexOutOfBoundsException if the index is out of range (index < 0 || index >= size)
+     */
+    public Coffee get(long index) {
+        checkIndex(index);
+        ByteBuffer segment = segmentOf(index);
+        int at = offsetOf(index);
+        return CoffeeKind.fromTag(segment.get(at + KIND)).create(
+                segment.getDouble(at + WEIGHT),
+                segment.getDouble(at + PRICE),
+                segment.getDouble(at + QUALITY),
+                strings.get(segment.getInt(at + BRAND)),
+                segment.getDouble(at + VOLUME),
+                strings.get(segment.getInt(at + DETAIL)));
+    }
+
+    /**
+     * Reads an attribute of the coffee at the specified position without building the coffee.
+     *
+     * @param attribute the attribute to read
+     * @param index     the position of the coffee
+     * @return the value of the attribute
+     */
+    public double valueAt(CoffeeAttribute attribute, long index) {
+        checkIndex(index);
+        ByteBuffer segment = segmentOf(index);
+        int at = offsetOf(index);
+        switch (attribute) {
+            case WEIGHT:
+                return segment.getDouble(at + WEIGHT);
+            case PRICE:
+                return segment.getDouble(at + PRICE);
+            case QUALITY:
+                return segment.getDouble(at + QUALITY);
+            case VOLUME:
+                return segment.getDouble(at + VOLUME);
+            default:
+                return segment.getDouble(at + PRICE) / segment.getDouble(at + WEIGHT);
+        }
+    }
+
+    /**
+     * Appends a coffee to the end of the file.
+     *
+     * @param coffee the coffee to append
+     * @return true (as specified by Collection.add)
+     */
+    @Override
+    public boolean add(Coffee coffee) {
+        if (coffee == null) throw new NullPointerException("Coffee cannot be null.");
+        if ((size >>> SEGMENT_SHIFT) == segments.size()) {
+            mapSegment();
+        }
+        write(size, coffee);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Coffee set(int index, Coffee element) {
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        Coffee oldValue = get(index);
+        write(index, element);
+        return oldValue;
+    }
+
+    /**
+     * Removes all coffees. The file keeps its size and is overwritten by later appends.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+        header.putLong(COUNT_OFFSET, 0);
+        modCount++;
+    }
+
+    /**
+     * Forces every change of the list to be written to the storage device. The string
+     * file is forced first and the records next; the record count is written to the
+     * header and forced last, so it never covers data that is not yet on disk.
+     *
+     * @throws IOException if the string table cannot be forced
+     */
+    public void force() throws IOException {
+        stringFile.force(false);
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.putLong(COUNT_OFFSET, size);
+        header.force();
+    }
+
+    /**
+     * Forces the changes to disk and closes the files. The mappings are released by the
+     * garbage collector once the list is no longer referenced.
+     *
+     * @throws IOException if the files cannot be forced or closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            force();
+        } finally {
+            data.close();
+            stringFile.close();
+        }
+    }
+
+    private void write(long index, Coffee coffee) {
+        CoffeeKind kind = CoffeeKind.of(coffee);
+        int brand = intern(coffee.getBrand());
+        int detail = intern(kind.detailOf(coffee));
+        ByteBuffer segment = segmentOf(index);
+        int at = offsetOf(index);
+        segment.putDouble(at + WEIGHT, coffee.getWeight());
+        segment.putDouble(at + PRICE, coffee.getPrice());
+        segment.putDouble(at + QUALITY, coffee.getQuality());
+        segment.putDouble(at + VOLUME, coffee.getVolume());
+        segment.putInt(at + BRAND, brand);
+        segment.putInt(at + DETAIL, detail);
+        segment.put(at + KIND, kind.tag());
+    }
+
+    /**
+     * Returns the id of a string, appending it to the string file first if it is new.
+     */
+    private int intern(String value) {
+        int id = strings.find(value);
+        if (id >= 0) return id;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        entry.putInt(bytes.length).put(bytes).flip();
+        try {
+            long position = stringFile.size();
+            while (entry.hasRemaining()) {
+                position += stringFile.write(entry, position);
+            }
+            stringFile.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return strings.idOf(value);
+    }
+
+    private void loadStrings() throws IOException {
+        long length = stringFile.size();
+        if (length == 0) return;
+        ByteBuffer buffer = stringFile.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        int valid = 0;
+        while (buffer.remaining() >= Integer.BYTES) {
+            int bytes = buffer.getInt();
+            if (bytes < 0 || bytes > buffer.remaining()) break;
+            byte[] value = new byte[bytes];
+            buffer.get(value);
+            strings.idOf(new String(value, StandardCharsets.UTF_8));
+            valid = buffer.position();
+        }
+        if (valid < length) {
+            // drop an entry torn by a crash, so that new strings get the right ids
+            stringFile.truncate(valid);
+        }
+    }
+
+    private void mapSegment() {
+        long position = HEADER_BYTES + segments.size() * SEGMENT_BYTES;
+        try {
+            segments.add(data.map(FileChannel.MapMode.READ_WRITE, position, SEGMENT_BYTES));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer segmentOf(long index) {
+        return segments.get((int) (index >>> SEGMENT_SHIFT));
+    }
+
+    private static int offsetOf(long index) {
+        return (int) (index & SEGMENT_MASK) * RECORD_BYTES;
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+    }
+}
@@ -0,0 +1,371 @@
+package com.example;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of coffees that can hand out consistent snapshots of itself in O(1).
+ * <p>
+ * The elements live in a balanced tree of chunks holding up to 32 coffees or children
+ * each. Every inner chunk keeps a size table with the cumulative number of coffees below
+ * each child, so a position is found by descending the tree, and every chunk records
+ * which version of the list owns it. Taking a {@link #snapshot()} only starts a new
+ * version: the snapshot keeps the current chunks, and the next write to a chunk copies
+ * it together with the path from the root, about log<sub>32</sub>(n) small arrays,
+ * before changing it. Snapshots are immutable, can be read from other threads without
+ * blocking the writer, and are reclaimed by the garbage collector once released.
+ * </p>
+ * <p>
+ * Reading, appending, replacing, inserting and removing at any position run in
+ * O(log n): an insertion shifts the coffees of a single chunk and splits it in two when
+ * it is full, and a removal that leaves a chunk less than half full merges it with a
+ * neighbour or moves coffees over from it. The list itself is not thread-safe; only its
+ * snapshots are.
+ * </p>
+ */
+public class PersistentCoffeeList extends AbstractList<Coffee> implements RandomAccess {
+    private static final int WIDTH = 32;
+    private static final int HALF = WIDTH / 2;
+
+    private Object version = new Object();
+    private Node root;
+    private int size;
+
+    /**
+     * Default constructor that initializes an empty list.
+     */
+    public PersistentCoffeeList() {
+        reset();
+    }
+
+    /**
+     * Constructor that initializes the list with a collection of Coffee objects.
+     *
+     * @param coffees the coffees to add, in order.
+     */
+    public PersistentCoffeeList(Collection<? extends Coffee> coffees) {
+        this();
+        addAll(coffees);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current contents of the list in O(1).
+     * Later modifications of the list are not visible in the snapshot.
+     *
+     * @return the snapshot
+     */
+    public List<Coffee> snapshot() {
+        version = new Object();
+        return new Snapshot(root, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Coffee get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return lookup(root, index);
+    }
+
+    @Override
+    public boolean add(Coffee coffee) {
+        add(size, coffee);
+        return true;
+    }
+
+    @Override
+    public Coffee set(int index, Coffee element) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        root = editable(root);
+        Node node = root;
+        while (node.sizes != null) {
+            int slot = slotOf(node, index);
+            if (slot > 0) index -= node.sizes[slot - 1];
+            Node child = editable((Node) node.array[slot]);
+            node.array[slot] = child;
+            node = child;
+        }
+        Coffee oldValue = (Coffee) node.array[index];
+        node.array[index] = element;
+        return oldValue;
+    }
+
+    @Override
+    public void add(int index, Coffee element) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+        if (element == null) throw new NullPointerException("Coffee cannot be null.");
+        root = editable(root);
+        Node sibling = insert(root, index, element);
+        if (sibling != null) {
+            Node grown = new Node(version, true);
+            grown.array[0] = root;
+            grown.array[1] = sibling;
+            grown.count = 2;
+            recount(grown, 0);
+            root = grown;
+        }
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Coffee remove(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        Coffee removed;
+        if (size == 1) {
+            removed = get(0);
+            reset();
+        } else {
+            root = editable(root);
+            removed = remove(root, index);
+            while (root.sizes != null && root.count == 1) {
+                root = (Node) root.array[0];
+            }
+            size--;
+        }
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+        modCount++;
+    }
+
+    private void reset() {
+        version = new Object();
+        root = new Node(version, false);
+        size = 0;
+    }
+
+    /**
+     * Inserts a coffee below an editable node.
+     *
+     * @return the chunk split off the node to make room, or null if the node had room
+     */
+    private Node insert(Node node, int index, Coffee coffee) {
+        if (node.sizes == null) return place(node, index, coffee);
+        int slot = slotOf(node, index);
+        int local = slot == 0 ? index : index - node.sizes[slot - 1];
+        Node child = editable((Node) node.array[slot]);
+        node.array[slot] = child;
+        Node sibling = insert(child, local, coffee);
+        if (sibling == null) {
+            for (int i = slot; i < node.count; i++) node.sizes[i]++;
+            return null;
+        }
+        recount(node, slot);
+        return place(node, slot + 1, sibling);
+    }
+
+    /**
+     * Puts a coffee or a child into a slot of an editable node, splitting the node if it
+     * is full. A full node extended at its end is kept whole and a new chunk is started,
+     * so that appending fills every chunk.
+     *
+     * @return the chunk split off the node, or null if the node had room
+     */
+    private Node place(Node node, int slot, Object item) {
+        if (node.count < WIDTH) {
+            insertAt(node, slot, item);
+            return null;
+        }
+        Node right = new Node(version, node.sizes != null);
+        if (slot < WIDTH) {
+            System.arraycopy(node.array, HALF, right.array, 0, WIDTH - HALF);
+            Arrays.fill(node.array, HALF, WIDTH, null);
+            node.count = HALF;
+            right.count = WIDTH - HALF;
+            if (right.sizes != null) recount(right, 0);
+            if (slot <= HALF) {
+                insertAt(node, slot, item);
+                return right;
+            }
+            slot -= HALF;
+        } else {
+            slot = 0;
+        }
+        insertAt(right, slot, item);
+        return right;
+    }
+
+    /**
+     * Removes a coffee below an editable node, merging or refilling the child it was
+     * removed from if that child drops below half of its capacity.
+     */
+    private Coffee remove(Node node, int index) {
+        if (node.sizes == null) {
+            Coffee removed = (Coffee) node.array[index];
+            removeAt(node, index);
+            return removed;
+        }
+        int slot = slotOf(node, index);
+        int local = slot == 0 ? index : index - node.sizes[slot - 1];
+        Node child = editable((Node) node.array[slot]);
+        node.array[slot] = child;
+        Coffee removed = remove(child, local);
+        if (child.count == 0) {
+            removeAt(node, slot);
+        } else if (child.count < HALF && node.count > 1) {
+            rebalance(node, slot < node.count - 1 ? slot : slot - 1);
+        } else {
+            for (int i = slot; i < node.count; i++) node.sizes[i]--;
+        }
+        return removed;
+    }
+
+    /**
+     * Merges the children in the specified slot and the next one of an editable node, or
+     * moves entries between them so that both are at least half full.
+     */
+    private void rebalance(Node node, int slot) {
+        Node left = editable((Node) node.array[slot]);
+        Node right = (Node) node.array[slot + 1];
+        node.array[slot] = left;
+        int total = left.count + right.count;
+        if (total <= WIDTH) {
+            System.arraycopy(right.array, 0, left.array, left.count, right.count);
+            int from = left.count;
+            left.count = total;
+            if (left.sizes != null) recount(left, from);
+            removeAt(node, slot + 1);
+        } else {
+            right = editable(right);
+            node.array[slot + 1] = right;
+            int leftCount = total / 2;
+            if (left.count > leftCount) {
+                int moved = left.count - leftCount;
+                System.arraycopy(right.array, 0, right.array, moved, right.count);
+                System.arraycopy(left.array, leftCount, right.array, 0, moved);
+                Arrays.fill(left.array, leftCount, left.count, null);
+            } else {
+                int moved = leftCount - left.count;
+                System.arraycopy(right.array, 0, left.array, left.count, moved);
+                System.arraycopy(right.array, moved, right.array, 0, right.count - moved);
+                Arrays.fill(right.array, right.count - moved, right.count, null);
+            }
+            right.count = total - leftCount;
+            left.count = leftCount;
+            if (left.sizes != null) {
+                recount(left, 0);
+                recount(right, 0);
+            }
+        }
+        recount(node, slot);
+    }
+
+    private static void insertAt(Node node, int slot, Object item) {
+        System.arraycopy(node.array, slot, node.array, slot + 1, node.count - slot);
+        node.array[slot] = item;
+        node.count++;
+        if (node.sizes != null) recount(node, slot);
+    }
+
+    private static void removeAt(Node node, int slot) {
+        System.arraycopy(node.array, slot + 1, node.array, slot, node.count - slot - 1);
+        node.array[--node.count] = null;
+        if (node.sizes != null) recount(node, slot);
+    }
+
+    /**
+     * Recomputes the size table of an inner node from the specified slot on.
+     */
+    private static void recount(Node node, int from) {
+        int total = from == 0 ? 0 : node.sizes[from - 1];
+        for (int i = from; i < node.count; i++) {
+            total += sizeOf((Node) node.array[i]);
+            node.sizes[i] = total;
+        }
+    }
+
+    private static int sizeOf(Node node) {
+        return node.sizes == null ? node.count : node.sizes[node.count - 1];
+    }
+
+    private Node editable(Node node) {
+        if (node.owner == version) return node;
+        Node copy = new Node(version, node.array.clone(), node.sizes == null ? null : node.sizes.clone());
+        copy.count = node.count;
+        return copy;
+    }
+
+    /**
+     * Returns the slot of the child of an inner node that holds the specified position, or
+     * the last slot if the position is the end of the node.
+     */
+    private static int slotOf(Node node, int index) {
+        int low = 0;
+        int high = node.count - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (node.sizes[mid] > index) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static Coffee lookup(Node root, int index) {
+        Node node = root;
+        while (node.sizes != null) {
+            int slot = slotOf(node, index);
+            if (slot > 0) index -= node.sizes[slot - 1];
+            node = (Node) node.array[slot];
+        }
+        return (Coffee) node.array[index];
+    }
+
+    /**
+     * Chunk of the tree: up to 32 coffees, or up to 32 children with the cumulative number
+     * of coffees below them, and the version allowed to modify it in place.
+     */
+    private static final class Node {
+        private final Object owner;
+        private final Object[] array;
+        private final int[] sizes;
+        private int count;
+
+        Node(Object owner, boolean inner) {
+            this(owner, new Object[WIDTH], inner ? new int[WIDTH] : null);
+        }
+
+        Node(Object owner, Object[] array, int[] sizes) {
+            this.owner = owner;
+            this.array = array;
+            this.sizes = sizes;
+        }
+    }
+
+    /**
+     * Immutable view of the tree as it was when the snapshot was taken.
+     */
+    private static final class Snapshot extends AbstractList<Coffee> implements RandomAccess {
+        private final Node root;
+        private final int size;
+
+        Snapshot(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Coffee get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+            return lookup(root, index);
+        }
+    }
+}
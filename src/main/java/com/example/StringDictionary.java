@@ -0,0 +1,69 @@
+package com.example;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of strings: every distinct string is stored once and referred to
+ * by a dense integer id, in order of first appearance.
+ */
+final class StringDictionary {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    /**
+     * Returns the id of the specified string, adding it to the dictionary if needed.
+     *
+     * @param value the string to encode
+     * @return the id of the string
+     */
+    int idOf(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        ids.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Returns the id of the specified string without adding it.
+     *
+     * @param value the string to look up
+     * @return the id of the string, or -1 if the dictionary does not hold it
+     */
+    int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the string with the specified id.
+     *
+     * @param id an id returned by {@link #idOf(String)}
+     * @return the string with that id
+     */
+    String get(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Unknown string id: " + id);
+        return values[id];
+    }
+
+    /**
+     * Returns the number of distinct strings in the dictionary.
+     *
+     * @return the number of strings
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every string from the dictionary, so ids are handed out from 0 again.
+     */
+    void clear() {
+        ids.clear();
+        values = new String[16];
+        size = 0;
+    }
+}
@@ -10,7 +10,9 @@ package com.example;
  * such as weight, price, quality, brand, and volume.</p>
  */
 public class WholeBeanCoffee extends Coffee {
-    private String countryOfOrigin;
+    private static final CoffeeStrings.Labels TYPE_LABELS = new CoffeeStrings.Labels("Whole Bean");
+
+    private final String countryOfOrigin;
 
     /**
      * Constructs a WholeBeanCoffee object with the specified weight, price, quality,
@@ -29,7 +31,7 @@ public class WholeBeanCoffee extends Coffee {
         if (countryOfOrigin == null || countryOfOrigin.isEmpty()) {
             throw new IllegalArgumentException("Country of origin cannot be empty.");
         }
-        this.countryOfOrigin = countryOfOrigin;
+        this.countryOfOrigin = CoffeeStrings.intern(countryOfOrigin);
     }
 
     /**
@@ -42,12 +44,23 @@ public class WholeBeanCoffee extends Coffee {
     }
 
     /**
-     * Returns the type of coffee, including the country of origin.
+     * Returns the type of coffee, including the country of origin. The label is built
+     * once per country and shared by all whole bean coffees from that country.
      *
      * @return a string representation of the coffee type
      */
     @Override
     public String getType() {
-        return "Whole Bean (" + countryOfOrigin + ")";
+        return TYPE_LABELS.of(countryOfOrigin);
+    }
+
+    @Override
+    protected boolean detailEquals(Coffee other) {
+        return countryOfOrigin.equals(((WholeBeanCoffee) other).countryOfOrigin);
+    }
+
+    @Override
+    protected int detailHashCode() {
+        return countryOfOrigin.hashCode();
     }
 }
@@ -0,0 +1,174 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeDelta} and the change tracking of {@link CoffeeList}.
+ */
+public class CoffeeDeltaTest {
+
+    private static CoffeeList catalogue(int count) {
+        CoffeeList coffees = new CoffeeList();
+        for (int i = 0; i < count; i++) coffees.add(coffee(i));
+        return coffees;
+    }
+
+    @Test
+    public void replayingTheRecordedEditsSyncsACopy() {
+        Random random = new Random(42);
+        CoffeeList source = catalogue(200);
+        CoffeeList copy = new CoffeeList(source);
+        copy.enableIndex();
+        source.enableChangeTracking();
+        for (int round = 0; round < 20; round++) {
+            for (int edit = 0; edit < 30; edit++) {
+                int next = 1000 + round * 100 + edit;
+                switch (random.nextInt(6)) {
+                    case 0:
+                        source.add(coffee(next));
+                        break;
+                    case 1:
+                        source.add(random.nextInt(source.size() + 1), coffee(next));
+                        break;
+                    case 2:
+                        if (!source.isEmpty()) source.remove(random.nextInt(source.size()));
+                        break;
+                    case 3:
+                        if (!source.isEmpty()) source.set(random.nextInt(source.size()), coffee(next));
+                        break;
+                    case 4:
+                        source.addAll(random.nextInt(source.size() + 1), Arrays.asList(coffee(next), coffee(next + 1)));
+                        break;
+                    default:
+                        source.removeIf(coffee -> coffee.getWeight() > 40 && coffee.getWeight() < 45);
+                }
+            }
+            if (round == 10) source.sortBy(CoffeeAttribute.PRICE);
+            if (round == 15) source.subList(5, 50).clear();
+            copy.applyDelta(source.takeDelta());
+            assertEquals(new ArrayList<>(source), new ArrayList<>(copy));
+        }
+        for (int i = 0; i < copy.size(); i++) {
+            assertEquals(source.indexOf(copy.get(i)), copy.indexOf(copy.get(i)));
+        }
+        assertTrue(source.takeDelta().isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void appliesLargeDeltasInTimeProportionalToTheEdits() {
+        CoffeeList source = new CoffeeList();
+        for (int i = 0; i < 300_000; i++) source.add(coffee(300_000 - i));
+        CoffeeList copy = new CoffeeList(source);
+        source.enableChangeTracking();
+        source.sortBy(CoffeeAttribute.WEIGHT);
+        for (int i = 0; i < 100_000; i++) source.add(coffee(i));
+        for (int i = 0; i < 10_000; i++) source.add(i * 3, coffee(i));
+        for (int i = 0; i < 10_000; i++) source.remove(i * 2);
+        CoffeeDelta delta = source.takeDelta();
+        assertTrue(delta.size() > 300_000);
+
+        copy.applyDelta(delta);
+        assertEquals(new ArrayList<>(source), new ArrayList<>(copy));
+    }
+
+    @Test
+    public void clearingSupersedesEarlierEdits() {
+        CoffeeList source = catalogue(10);
+        CoffeeList copy = new CoffeeList(source);
+        source.enableChangeTracking();
+        source.remove(3);
+        source.clear();
+        source.add(coffee(7));
+        CoffeeDelta delta = source.takeDelta();
+        assertEquals(2, delta.size());
+
+        copy.applyDelta(delta);
+        assertEquals(Arrays.asList(coffee(7)), new ArrayList<>(copy));
+    }
+
+    @Test
+    public void deltasSurviveTheWireFormat() throws IOException {
+        CoffeeDelta delta = new CoffeeDelta.Builder()
+                .add(0, coffee(10))
+                .set(2, coffee(11))
+                .remove(4)
+                .add(5, coffee(12))
+                .build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        delta.writeTo(new DataOutputStream(bytes));
+        CoffeeDelta decoded = CoffeeDelta.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(4, decoded.size());
+
+        CoffeeList expected = catalogue(6);
+        expected.add(0, coffee(10));
+        expected.set(2, coffee(11));
+        expected.remove(4);
+        expected.add(5, coffee(12));
+        CoffeeList replayed = catalogue(6);
+        replayed.applyDelta(decoded);
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(replayed));
+    }
+
+    @Test
+    public void listenersSeeOneEventPerEdit() {
+        CoffeeList target = catalogue(4);
+        Coffee first = target.get(0);
+        List<String> events = new ArrayList<>();
+        target.addListener(new CoffeeListListener() {
+            public void added(int index, Coffee coffee) {
+                events.add("added " + index);
+            }
+
+            public void removed(int index, Coffee coffee) {
+                assertSame(first, coffee);
+                events.add("removed " + index);
+            }
+
+            public void replaced(int index, Coffee oldValue, Coffee replacement) {
+                events.add("replaced " + index);
+            }
+
+            public void cleared() {
+                events.add("cleared");
+            }
+        });
+        target.applyDelta(new CoffeeDelta.Builder().add(4, coffee(9)).remove(0).set(1, coffee(8)).build());
+        assertEquals(Arrays.asList("added 4", "removed 0", "replaced 1"), events);
+        assertEquals(4, target.size());
+    }
+
+    @Test
+    public void invalidDeltasLeaveTheListUnchanged() {
+        CoffeeList target = catalogue(3);
+        List<Coffee> before = new ArrayList<>(target);
+        try {
+            target.applyDelta(new CoffeeDelta.Builder().remove(0).remove(0).set(1, coffee(5)).build());
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+            assertEquals(before, new ArrayList<>(target));
+        }
+        assertFalse(target.isChangeTracking());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void takingADeltaRequiresTracking() {
+        catalogue(1).takeDelta();
+    }
+}
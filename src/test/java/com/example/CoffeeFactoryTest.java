@@ -0,0 +1,66 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeFactory}.
+ */
+public class CoffeeFactoryTest {
+
+    @Test
+    public void returnsTheSameInstanceForEqualRecords() {
+        CoffeeFactory factory = new CoffeeFactory();
+        GroundCoffee ground = factory.ground(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine");
+        assertSame(ground, factory.ground(0.5, 8.0, 6.0, new String("Nescafe"), 0.3, new String("Fine")));
+        assertSame(ground, factory.create(CoffeeKind.GROUND, 0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine"));
+        assertEquals(new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine"), ground);
+
+        assertNotSame(ground, factory.ground(0.5, 8.0, 6.0, "Nescafe", 0.3, "Coarse"));
+        assertNotSame(ground, factory.ground(0.5, 8.5, 6.0, "Nescafe", 0.3, "Fine"));
+        assertTrue(factory.instant(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine") instanceof InstantCoffee);
+        WholeBeanCoffee beans = factory.wholeBean(1.0, 10.0, 5.0, "Lavazza", 0.5, "Italy");
+        assertSame(beans, factory.wholeBean(1.0, 10.0, 5.0, "Lavazza", 0.5, "Italy"));
+    }
+
+    @Test
+    public void keepsManyDistinctRecords() {
+        CoffeeFactory factory = new CoffeeFactory();
+        List<Coffee> created = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            created.add(factory.wholeBean(1.0 + i, 10.0, 5.0, "Lavazza", 0.5, "Italy"));
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertSame(created.get(i), factory.wholeBean(1.0 + i, 10.0, 5.0, "Lavazza", 0.5, "Italy"));
+        }
+        assertEquals(5000, factory.cachedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void validatesRecordsItHasNotSeen() {
+        new CoffeeFactory().ground(0.5, 8.0, 6.0, "Nescafe", 0.3, "Powder");
+    }
+
+    @Test
+    public void readerReusesCoffeesOfUnchangedRows() throws IOException {
+        String feed = "GROUND,Nescafe,0.5,8.0,6.0,0.3,Fine\nINSTANT,Jacobs,0.2,7.0,9.0,0.1,Can\n";
+        CoffeeRecordReader reader = new CoffeeRecordReader(CoffeeRecordFormat.CSV, error -> { }, new CoffeeFactory());
+        List<Coffee> first = new ArrayList<>();
+        List<Coffee> refreshed = new ArrayList<>();
+        reader.read(new StringReader(feed), first::add);
+        reader.read(new StringReader(feed), refreshed::add);
+
+        assertEquals(2, refreshed.size());
+        assertSame(first.get(0), refreshed.get(0));
+        assertSame(first.get(1), refreshed.get(1));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link CoffeeListCodec}.
+ */
+public class CoffeeListCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Coffee> catalogue(int count) {
+        List<Coffee> coffees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            coffees.add(coffee(i, "Nescafe " + i % 7, i % 10));
+        }
+        return coffees;
+    }
+
+    private static void assertSameCoffees(List<Coffee> expected, List<Coffee> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Coffee e = expected.get(i);
+            Coffee a = actual.get(i);
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.getBrand(), a.getBrand());
+            assertEquals(e.getWeight(), a.getWeight(), 0);
+            assertEquals(e.getPrice(), a.getPrice(), 0);
+            assertEquals(e.getQuality(), a.getQuality(), 0);
+            assertEquals(e.getVolume(), a.getVolume(), 0);
+        }
+    }
+
+    @Test
+    public void roundTripsThroughStreams() throws IOException {
+        List<Coffee> coffees = catalogue(20000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CoffeeListCodec.write(coffees, Channels.newChannel(bytes));
+
+        CoffeeList read = CoffeeListCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertSameCoffees(coffees, read);
+    }
+
+    @Test
+    public void roundTripsThroughMappedFiles() throws IOException {
+        List<Coffee> coffees = catalogue(1000);
+        Path file = folder.getRoot().toPath().resolve("catalogue.cofl");
+        CoffeeListCodec.write(coffees, file);
+
+        assertSameCoffees(coffees, CoffeeListCodec.read(file));
+        CoffeeListCodec.write(new ArrayList<>(), file);
+        assertEquals(0, CoffeeListCodec.read(file).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedData() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CoffeeListCodec.write(catalogue(10), Channels.newChannel(bytes));
+        byte[] truncated = new byte[bytes.size() - 4];
+        System.arraycopy(bytes.toByteArray(), 0, truncated, 0, truncated.length);
+
+        CoffeeListCodec.read(Channels.newChannel(new ByteArrayInputStream(truncated)));
+    }
+
+    private static byte[] header(int count, int strings) {
+        return ByteBuffer.allocate(16).putInt(CoffeeListCodec.MAGIC).putInt(CoffeeListCodec.VERSION)
+                .putInt(count).putInt(strings).array();
+    }
+
+    @Test
+    public void rejectsCorruptSizesWithoutAllocatingThem() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("corrupt.cofl");
+        byte[][] corrupt = {header(0, -5), header(Integer.MAX_VALUE - 10, 0), header(0, Integer.MAX_VALUE - 10)};
+        for (byte[] bytes : corrupt) {
+            Files.write(file, bytes);
+            try {
+                CoffeeListCodec.read(file);
+                fail();
+            } catch (IOException expected) {
+            }
+            try {
+                CoffeeListCodec.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+                fail();
+            } catch (IOException expected) {
+            }
+        }
+    }
+}
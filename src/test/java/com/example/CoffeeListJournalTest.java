@@ -0,0 +1,153 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link CoffeeListJournal}.
+ */
+public class CoffeeListJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void recoversCommittedEdits() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("coffees");
+        List<Coffee> expected;
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            CoffeeList coffees = journal.getList();
+            assertTrue(coffees.isEmpty());
+            for (int i = 0; i < 100; i++) coffees.add(coffee(i));
+            coffees.remove(10);
+            coffees.add(0, coffee(200));
+            coffees.set(5, coffee(201));
+            journal.commit();
+            coffees.sortBy(CoffeeAttribute.WEIGHT);
+            coffees.removeIf(coffee -> coffee.getWeight() > 90);
+            expected = new ArrayList<>(coffees);
+        }
+
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            assertEquals(expected, new ArrayList<>(journal.getList()));
+            journal.getList().clear();
+            journal.getList().add(coffee(7));
+        }
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            assertEquals(List.of(coffee(7)), new ArrayList<>(journal.getList()));
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void recoversABulkLoadCommittedAsOneRecord() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory, 60_000, Long.MAX_VALUE)) {
+            CoffeeList coffees = journal.getList();
+            for (int i = 0; i < 500_000; i++) coffees.add(coffee(i));
+            journal.commit();
+        }
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            assertEquals(500_000, journal.getList().size());
+            assertEquals(coffee(499_999), journal.getList().get(499_999));
+        }
+    }
+
+    @Test
+    public void compactsTheJournalIntoSnapshots() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        List<Coffee> expected;
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory, 1, 512)) {
+            CoffeeList coffees = journal.getList();
+            for (int i = 0; i < 500; i++) {
+                coffees.add(coffee(i));
+                if (i % 50 == 0) journal.commit();
+            }
+            journal.checkpoint();
+            coffees.remove(0);
+            expected = new ArrayList<>(coffees);
+        }
+        List<String> files = files(directory);
+        assertEquals(2, files.size());
+        assertTrue(files.get(0).startsWith("journal-"));
+        assertTrue(files.get(1).startsWith("snapshot-"));
+
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            assertEquals(expected, new ArrayList<>(journal.getList()));
+        }
+    }
+
+    @Test
+    public void ignoresARecordTornByACrash() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        Path log = directory.resolve("journal-0.log");
+        long committed;
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            journal.getList().add(coffee(1));
+            journal.commit();
+            committed = Files.size(log);
+            journal.getList().add(coffee(2));
+        }
+        byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            assertEquals(List.of(coffee(1)), new ArrayList<>(journal.getList()));
+            assertEquals(committed, Files.size(log));
+            journal.getList().add(coffee(3));
+        }
+        try (CoffeeListJournal journal = CoffeeListJournal.open(directory)) {
+            assertEquals(List.of(coffee(1), coffee(3)), new ArrayList<>(journal.getList()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesToCommitAfterClosing() throws IOException {
+        CoffeeListJournal journal = CoffeeListJournal.open(folder.getRoot().toPath());
+        journal.close();
+        journal.close();
+        journal.commit();
+    }
+
+    @Test(timeout = 20000)
+    public void keepsRecordingAfterABackgroundFailure() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("coffees");
+        CoffeeListJournal journal = CoffeeListJournal.open(directory, 1, 1);
+        assertNull(journal.getFailure());
+        // A directory in the way of the next journal file makes the compaction fail.
+        Path obstacle = Files.createDirectory(directory.resolve("journal-1.log"));
+        journal.getList().add(coffee(1));
+        while (journal.getFailure() == null) {
+            Thread.sleep(1);
+        }
+
+        journal.getList().add(coffee(2));
+        journal.commit();
+        Files.delete(obstacle);
+        journal.close();
+        try (CoffeeListJournal reopened = CoffeeListJournal.open(directory)) {
+            assertEquals(List.of(coffee(1), coffee(2)), new ArrayList<>(reopened.getList()));
+        }
+    }
+}
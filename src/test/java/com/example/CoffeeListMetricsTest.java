@@ -0,0 +1,119 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeListMetrics} and {@link LatencyHistogram}.
+ */
+public class CoffeeListMetricsTest {
+
+    @Test
+    public void countsOperationsOnlyWhileEnabled() {
+        CoffeeList list = new CoffeeList(4);
+        list.add(coffee(0));
+
+        CoffeeListMetrics metrics = new CoffeeListMetrics();
+        list.setMetrics(metrics);
+        for (int i = 1; i <= 4; i++) list.add(coffee(i));
+        list.add(0, coffee(5));
+        list.remove(1);
+        Coffee last = list.get(list.size() - 1);
+        assertEquals(list.size() - 1, list.indexOf(last));
+        assertTrue(list.contains(last));
+        list.removeIf(coffee -> coffee.getWeight() < 2);
+
+        assertEquals(4, metrics.getAppends());
+        assertEquals(1, metrics.getInserts());
+        assertEquals(2, metrics.getRemovals());
+        assertEquals(2, metrics.getLookups());
+        assertEquals(2 * 5, metrics.getScannedElements());
+        assertEquals(5 + 4, metrics.getShiftedElements());
+        assertTrue(metrics.getResizes() >= 1);
+        assertTrue(metrics.getCopiedBytes() > 0);
+        assertEquals(2, metrics.getScanLatency().getCount());
+        assertEquals(1, metrics.getInsertLatency().getCount());
+
+        list.setMetrics(null);
+        list.add(coffee(6));
+        assertEquals(4, metrics.getAppends());
+        metrics.reset();
+        assertEquals(0, metrics.getResizes());
+        assertEquals(0, metrics.getScanLatency().getCount());
+    }
+
+    @Test
+    public void countsTheEditsOfAppliedDeltas() {
+        CoffeeList list = new CoffeeList();
+        for (int i = 0; i < 3; i++) list.add(coffee(i));
+        CoffeeListMetrics metrics = new CoffeeListMetrics();
+        list.setMetrics(metrics);
+
+        list.applyDelta(new CoffeeDelta.Builder()
+                .add(3, coffee(3))
+                .add(0, coffee(4))
+                .remove(2)
+                .set(0, coffee(5))
+                .build());
+        assertEquals(1, metrics.getAppends());
+        assertEquals(1, metrics.getInserts());
+        assertEquals(1, metrics.getRemovals());
+
+        list.applyDelta(new CoffeeDelta.Builder().clear().add(0, coffee(6)).build());
+        assertEquals(2, metrics.getAppends());
+        assertEquals(1 + 4, metrics.getRemovals());
+
+        list.clear();
+        assertEquals(1 + 4 + 1, metrics.getRemovals());
+    }
+
+    @Test
+    public void histogramReportsPercentilesWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) histogram.record(value);
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000.5, histogram.getMean(), 1e-9);
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 5000 && median <= 5000 * 1.125);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 9900 && p99 <= 10000);
+        assertEquals(1, histogram.getValueAtPercentile(0));
+
+        for (long value : new long[] {0, 7, 8, 9, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBoundOf(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBoundOf(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void publishesTheMetricsOverJmx() throws Exception {
+        CoffeeListMetrics metrics = new CoffeeListMetrics();
+        List<Coffee> coffees = new ArrayList<>();
+        for (int i = 0; i < 10; i++) coffees.add(coffee(i));
+        CoffeeList list = new CoffeeList();
+        list.setMetrics(metrics);
+        list.addAll(coffees);
+
+        ObjectName name = metrics.register("metrics-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(10L, server.getAttribute(name, "Appends"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "Appends"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static com.example.TestCoffees.coffees;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeList}.
+ */
+public class CoffeeListTest {
+
+    @Test
+    public void removeAllRemovesEveryOccurrence() {
+        List<Coffee> coffees = coffees(40);
+        CoffeeList list = new CoffeeList(coffees);
+        list.addAll(coffees);
+        List<Coffee> removed = new ArrayList<>();
+        for (int i = 0; i < coffees.size(); i += 2) {
+            removed.add(coffees.get(i));
+        }
+
+        assertTrue(list.removeAll(removed));
+
+        List<Coffee> expected = new ArrayList<>(coffees);
+        expected.addAll(coffees);
+        expected.removeAll(removed);
+        assertEquals(expected, new ArrayList<>(list));
+        assertFalse(list.removeAll(removed));
+    }
+
+    @Test
+    public void retainAllKeepsOrderOfRetainedElements() {
+        List<Coffee> coffees = coffees(30);
+        CoffeeList list = new CoffeeList(coffees);
+        List<Coffee> retained = Arrays.asList(coffees.get(25), coffees.get(3), coffees.get(17));
+
+        assertTrue(list.retainAll(retained));
+
+        assertEquals(Arrays.asList(coffees.get(3), coffees.get(17), coffees.get(25)), new ArrayList<>(list));
+        assertFalse(list.retainAll(retained));
+        assertTrue(list.retainAll(Collections.emptyList()));
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void removeIfLeavesListConsistentWhenFilterThrows() {
+        List<Coffee> coffees = coffees(10);
+        CoffeeList list = new CoffeeList(coffees);
+        try {
+            list.removeIf(coffee -> {
+                if (coffee == coffees.get(6)) throw new IllegalStateException();
+                return coffee instanceof GroundCoffee;
+            });
+        } catch (IllegalStateException expected) {
+            // the elements from the failing one onwards are kept
+        }
+
+        List<Coffee> expected = new ArrayList<>(coffees);
+        expected.remove(4);
+        expected.remove(1);
+        assertEquals(expected, new ArrayList<>(list));
+    }
+
+    @Test
+    public void addAllAtIndexSplicesCollectionAndSkipsNulls() {
+        List<Coffee> coffees = coffees(50);
+        CoffeeList list = new CoffeeList(coffees.subList(0, 20));
+        List<Coffee> feed = new ArrayList<>(coffees.subList(20, 50));
+        feed.add(5, null);
+
+        assertTrue(list.addAll(10, feed));
+
+        List<Coffee> expected = new ArrayList<>(coffees.subList(0, 10));
+        expected.addAll(coffees.subList(20, 50));
+        expected.addAll(coffees.subList(10, 20));
+        assertEquals(expected, new ArrayList<>(list));
+        assertFalse(list.addAll(3, Arrays.asList((Coffee) null)));
+    }
+
+    @Test
+    public void addAllOfItselfDoublesTheList() {
+        List<Coffee> coffees = coffees(12);
+        CoffeeList list = new CoffeeList(coffees);
+
+        assertTrue(list.addAll(list));
+
+        List<Coffee> expected = new ArrayList<>(coffees);
+        expected.addAll(coffees);
+        assertEquals(expected, new ArrayList<>(list));
+    }
+
+    @Test
+    public void growthPoliciesAlwaysMakeRoomForTheRequiredCapacity() {
+        assertEquals(30, GrowthPolicy.doubling().grow(15, 16));
+        assertEquals(19, GrowthPolicy.multiplicative(1.3).grow(15, 16));
+        assertEquals(1024, GrowthPolicy.chunked(512).grow(512, 513));
+        assertEquals(Integer.MAX_VALUE, GrowthPolicy.doubling().grow(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void listGrowsFromZeroCapacityAndCanBeTrimmed() {
+        List<Coffee> coffees = coffees(100);
+        CoffeeList list = new CoffeeList(0, GrowthPolicy.chunked(7));
+        for (Coffee coffee : coffees) {
+            list.add(coffee);
+        }
+        list.trimToSize();
+        list.ensureCapacity(1000);
+        list.remove(0);
+        list.trimToSize();
+        list.add(coffees.get(0));
+
+        List<Coffee> expected = new ArrayList<>(coffees.subList(1, 100));
+        expected.add(coffees.get(0));
+        assertEquals(expected, new ArrayList<>(list));
+    }
+
+    @Test
+    public void indexedLookupsAgreeWithLinearScans() {
+        List<Coffee> coffees = coffees(60);
+        CoffeeList indexed = new CoffeeList(coffees);
+        CoffeeList scanned = new CoffeeList(coffees);
+        indexed.enableIndex();
+        assertTrue(indexed.isIndexed());
+
+        List<Consumer<CoffeeList>> edits = Arrays.asList(
+                list -> list.add(coffees.get(5)),
+                list -> list.set(10, coffees.get(20)),
+                list -> list.remove(list.size() - 1),
+                list -> list.add(3, coffees.get(40)),
+                list -> list.remove(coffees.get(7)),
+                list -> list.removeIf(coffee -> coffee.getPrice() > 60),
+                list -> list.addAll(coffees.subList(0, 4)));
+        for (Consumer<CoffeeList> edit : edits) {
+            edit.accept(indexed);
+            edit.accept(scanned);
+            for (Coffee coffee : coffees) {
+                assertEquals(scanned.indexOf(coffee), indexed.indexOf(coffee));
+                assertEquals(scanned.lastIndexOf(coffee), indexed.lastIndexOf(coffee));
+                assertEquals(scanned.contains(coffee), indexed.contains(coffee));
+            }
+        }
+
+        indexed.clear();
+        assertFalse(indexed.contains(coffees.get(0)));
+        indexed.add(coffees.get(0));
+        assertEquals(0, indexed.indexOf(coffees.get(0)));
+        indexed.disableIndex();
+        assertEquals(0, indexed.indexOf(coffees.get(0)));
+    }
+
+    @Test
+    public void indexFollowsShiftingEditsWithoutRebuilding() {
+        List<Coffee> coffees = coffees(50);
+        CoffeeList indexed = new CoffeeList(coffees);
+        CoffeeList scanned = new CoffeeList(coffees);
+        indexed.addAll(coffees);
+        scanned.addAll(coffees);
+        indexed.enableIndex();
+        Random random = new Random(7);
+        for (int round = 0; round < 500; round++) {
+            Coffee coffee = coffees.get(random.nextInt(coffees.size()));
+            int at = random.nextInt(scanned.size());
+            switch (random.nextInt(4)) {
+                case 0:
+                    indexed.add(at, coffee);
+                    scanned.add(at, coffee);
+                    break;
+                case 1:
+                    indexed.remove(at);
+                    scanned.remove(at);
+                    break;
+                case 2:
+                    assertEquals(scanned.remove(coffee), indexed.remove(coffee));
+                    break;
+                default:
+                    indexed.set(at, coffee);
+                    scanned.set(at, coffee);
+            }
+            Coffee probe = coffees.get(random.nextInt(coffees.size()));
+            assertEquals(scanned.indexOf(probe), indexed.indexOf(probe));
+            assertEquals(scanned.lastIndexOf(probe), indexed.lastIndexOf(probe));
+        }
+        assertEquals(new ArrayList<>(scanned), new ArrayList<>(indexed));
+    }
+
+    @Test(timeout = 10000)
+    public void headEditsOnALargeIndexedListStayCheap() {
+        List<Coffee> coffees = coffees(200_000);
+        CoffeeList list = new CoffeeList(coffees);
+        list.enableIndex();
+        for (int round = 0; round < 2000; round++) {
+            Coffee coffee = coffees.get(round);
+            assertTrue(list.contains(coffee));
+            list.remove(0);
+            list.add(0, coffee);
+        }
+        assertEquals(200_000, list.size());
+    }
+
+    @Test
+    public void parallelStreamsSplitTheListEvenly() {
+        List<Coffee> coffees = coffees(10000);
+        CoffeeList list = new CoffeeList(coffees);
+
+        Spliterator<Coffee> right = list.spliterator();
+        Spliterator<Coffee> left = right.trySplit();
+        assertEquals(5000, left.estimateSize());
+        assertEquals(5000, right.estimateSize());
+        assertTrue(right.hasCharacteristics(Spliterator.SUBSIZED | Spliterator.NONNULL));
+
+        double expected = 0;
+        for (Coffee coffee : coffees) {
+            expected += coffee.getPrice();
+        }
+        assertEquals(expected, list.parallelStream().mapToDouble(Coffee::getPrice).sum(), 1e-6);
+        assertEquals(coffees, list.parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void iteratorsFailFastOnConcurrentModification() {
+        CoffeeList list = new CoffeeList(coffees(5));
+
+        Iterator<Coffee> it = list.iterator();
+        it.next();
+        list.add(coffee(5));
+        try {
+            it.next();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+        }
+
+        Spliterator<Coffee> spliterator = list.spliterator();
+        spliterator.tryAdvance(coffee -> { });
+        list.remove(0);
+        try {
+            spliterator.forEachRemaining(coffee -> { });
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+        }
+
+        try {
+            list.forEach(coffee -> list.add(coffee(6)));
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+        }
+
+        ListIterator<Coffee> replacing = list.listIterator();
+        replacing.next();
+        list.set(0, coffee(7));
+        replacing.next();
+    }
+
+    @Test
+    public void listIteratorEditsTheElementLastReturned() {
+        List<Coffee> coffees = coffees(4);
+        CoffeeList list = new CoffeeList(coffees);
+
+        ListIterator<Coffee> it = list.listIterator(list.size());
+        assertEquals(coffees.get(3), it.previous());
+        assertEquals(coffees.get(2), it.previous());
+        it.remove();
+        assertEquals(Arrays.asList(coffees.get(0), coffees.get(1), coffees.get(3)), list);
+        assertEquals(2, it.nextIndex());
+
+        try {
+            it.add(null);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException expected) {
+            assertEquals(2, it.nextIndex());
+        }
+
+        Coffee added = coffee(4);
+        it.add(added);
+        assertEquals(added, it.previous());
+        Coffee replacement = coffee(5);
+        it.set(replacement);
+        assertEquals(Arrays.asList(coffees.get(0), coffees.get(1), replacement, coffees.get(3)), list);
+
+        Iterator<Coffee> removing = list.iterator();
+        while (removing.hasNext()) {
+            if (removing.next() != coffees.get(1)) removing.remove();
+        }
+        assertEquals(Collections.singletonList(coffees.get(1)), list);
+        try {
+            removing.remove();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void subListIsALiveViewOfTheList() {
+        List<Coffee> coffees = coffees(10);
+        CoffeeList list = new CoffeeList(coffees);
+        List<Coffee> removed = new ArrayList<>();
+        list.addListener(new CoffeeListListener() {
+            @Override
+            public void added(int index, Coffee coffee) {
+            }
+
+            @Override
+            public void removed(int index, Coffee coffee) {
+                removed.add(coffee);
+            }
+
+            @Override
+            public void replaced(int index, Coffee oldValue, Coffee replacement) {
+            }
+
+            @Override
+            public void cleared() {
+            }
+        });
+
+        List<Coffee> page = list.subList(2, 8);
+        assertEquals(coffees.subList(2, 8), page);
+        Coffee replacement = coffee(10);
+        page.set(0, replacement);
+        assertEquals(replacement, list.get(2));
+
+        List<Coffee> nested = page.subList(1, 4);
+        Coffee added = coffee(11);
+        nested.add(added);
+        assertEquals(7, page.size());
+        assertEquals(11, list.size());
+        assertEquals(added, list.get(6));
+
+        nested.clear();
+        assertTrue(nested.isEmpty());
+        assertEquals(3, page.size());
+        assertEquals(Arrays.asList(coffees.get(3), coffees.get(4), coffees.get(5), added), removed);
+        assertEquals(Arrays.asList(replacement, coffees.get(6), coffees.get(7)), page);
+
+        page.clear();
+        assertEquals(Arrays.asList(coffees.get(0), coffees.get(1), coffees.get(8), coffees.get(9)), list);
+
+        List<Coffee> stale = list.subList(0, 2);
+        list.add(coffee(12));
+        try {
+            stale.size();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+
+    @Test
+    public void sortsInPlaceByAttributeAndComparator() {
+        List<Coffee> coffees = coffees(20000);
+        Collections.shuffle(coffees, new java.util.Random(42));
+        Comparator<Coffee> byRatio = Comparator.comparingDouble(Coffee::getPriceToWeightRatio);
+        List<Coffee> expected = new ArrayList<>(coffees);
+        expected.sort(byRatio);
+
+        CoffeeList sequential = new CoffeeList(coffees);
+        sequential.sortBy(CoffeeAttribute.PRICE_TO_WEIGHT);
+        assertEquals(expected, sequential);
+
+        CoffeeList parallel = new CoffeeList(coffees);
+        parallel.enableIndex();
+        parallel.parallelSortBy(CoffeeAttribute.PRICE_TO_WEIGHT);
+        assertEquals(expected, parallel);
+        assertEquals(100, parallel.indexOf(expected.get(100)));
+
+        CoffeeList compared = new CoffeeList(coffees);
+        Iterator<Coffee> it = compared.iterator();
+        compared.sort(byRatio);
+        assertEquals(expected, compared);
+        try {
+            it.next();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected2) {
+        }
+    }
+
+    @Test
+    public void failedSortStillNotifiesListeners() {
+        List<Coffee> coffees = coffees(5000);
+        Collections.shuffle(coffees, new Random(7));
+        CoffeeList list = new CoffeeList(coffees);
+        list.enableIndex();
+        Iterator<Coffee> it = list.iterator();
+        int[] comparisons = {0};
+        try {
+            list.sort((a, b) -> {
+                if (++comparisons[0] == 20000) throw new IllegalStateException("comparator failed");
+                return Double.compare(a.getPrice(), b.getPrice());
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+
+        List<Coffee> scanned = new ArrayList<>(list);
+        for (Coffee coffee : scanned) {
+            assertEquals(scanned.indexOf(coffee), list.indexOf(coffee));
+        }
+        try {
+            it.next();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+        }
+    }
+
+    @Test
+    public void attributeSortIsStable() {
+        List<Coffee> coffees = coffees(300);
+        CoffeeList list = new CoffeeList(coffees);
+        list.sortBy(CoffeeAttribute.QUALITY);
+
+        List<Coffee> expected = new ArrayList<>(coffees);
+        expected.sort(Comparator.comparingDouble(Coffee::getQuality));
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void findsByBinarySearchAndSelectsTopK() {
+        List<Coffee> coffees = coffees(1000);
+        CoffeeList list = new CoffeeList(coffees);
+        list.sortBy(CoffeeAttribute.PRICE);
+
+        int found = list.binarySearch(CoffeeAttribute.PRICE, list.get(500).getPrice());
+        assertEquals(500, found);
+        assertEquals(-1, list.binarySearch(CoffeeAttribute.PRICE, -1.0));
+        assertEquals(-1001, list.binarySearch(CoffeeAttribute.PRICE, 1e9));
+
+        Comparator<Coffee> byRatio = Comparator.comparingDouble(Coffee::getPriceToWeightRatio);
+        List<Double> ratios = coffees.stream().map(Coffee::getPriceToWeightRatio).sorted().collect(Collectors.toList());
+        assertEquals(ratios.subList(0, 20), ratiosOf(list.topK(byRatio, 20)));
+        List<Double> highest = new ArrayList<>(ratios.subList(ratios.size() - 20, ratios.size()));
+        Collections.reverse(highest);
+        assertEquals(highest, ratiosOf(list.topK(byRatio.reversed(), 20)));
+        assertEquals(ratios, ratiosOf(list.topK(byRatio, 5000)));
+        assertTrue(list.topK(byRatio, 0).isEmpty());
+    }
+
+    private static List<Double> ratiosOf(List<Coffee> coffees) {
+        return coffees.stream().map(Coffee::getPriceToWeightRatio).collect(Collectors.toList());
+    }
+
+    @Test
+    public void coffeesWithEqualAttributesAreEqual() {
+        Coffee first = new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine");
+        Coffee same = new GroundCoffee(0.5, 8.0, 6.0, new String("Nescafe"), 0.3, "Fine");
+        assertEquals(first, same);
+        assertEquals(first.hashCode(), same.hashCode());
+        assertFalse(first.equals(new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Coarse")));
+        assertFalse(first.equals(new InstantCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine")));
+        assertFalse(new WholeBeanCoffee(1.0, 10.0, 5.0, "Lavazza", 0.5, "Italy")
+                .equals(new WholeBeanCoffee(1.0, 10.0, 5.0, "Lavazza", 0.5, "Brazil")));
+
+        CoffeeList list = new CoffeeList(coffees(5));
+        list.add(first);
+        assertEquals(5, list.indexOf(same));
+        assertTrue(list.remove(same));
+        assertFalse(list.contains(first));
+    }
+
+    @Test
+    public void deduplicateKeepsTheFirstOccurrenceOfEachCoffee() {
+        List<Coffee> coffees = coffees(50);
+        CoffeeList list = new CoffeeList(coffees);
+        for (int i = 0; i < 50; i += 2) {
+            Coffee original = coffees.get(i);
+            list.add(CoffeeKind.of(original).create(original.getWeight(), original.getPrice(), original.getQuality(),
+                    original.getBrand(), original.getVolume(), CoffeeKind.of(original).detailOf(original)));
+        }
+        list.add(coffees.get(1));
+
+        assertEquals(26, list.deduplicate());
+        assertEquals(coffees, new ArrayList<>(list));
+        assertEquals(0, list.deduplicate());
+    }
+}
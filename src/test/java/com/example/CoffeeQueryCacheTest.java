@@ -0,0 +1,122 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeQueryCache}.
+ */
+public class CoffeeQueryCacheTest {
+
+    private static CoffeeList catalogue() {
+        CoffeeList coffees = new CoffeeList();
+        for (int i = 0; i < 30; i++) {
+            coffees.add(coffee(i, i % 2 == 0 ? "Lavazza" : "Illy", i % 10));
+        }
+        return coffees;
+    }
+
+    @Test
+    public void memoizesQueriesUntilTheListChanges() {
+        CoffeeList coffees = catalogue();
+        try (CoffeeQueryCache cache = new CoffeeQueryCache(coffees)) {
+            List<Coffee> top = cache.topK(CoffeeAttribute.PRICE_TO_WEIGHT, 10);
+            assertEquals(10, top.size());
+            assertSame(top, cache.topK(CoffeeAttribute.PRICE_TO_WEIGHT, 10));
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+
+            Map<String, Integer> counts = cache.countByType();
+            assertEquals(Integer.valueOf(10), counts.get("Ground (Fine)"));
+            assertEquals(coffees.groupByBrand(CoffeeAttribute.QUALITY).get("Illy").getAverage(),
+                    cache.groupByBrand(CoffeeAttribute.QUALITY).get("Illy").getAverage(), 0.0);
+
+            coffees.add(new GroundCoffee(100.0, 9.0, 5.0, "Illy", 0.3, "Coarse"));
+            assertEquals(Integer.valueOf(1), cache.countByType().get("Ground (Coarse)"));
+            assertEquals(coffees.get(30), cache.topK(CoffeeAttribute.PRICE_TO_WEIGHT, 10).get(0));
+            assertEquals(2, cache.getInvalidationCount());
+        }
+    }
+
+    @Test
+    public void replacementsOnlyOutdateTheAffectedAttributes() {
+        CoffeeList coffees = catalogue();
+        CoffeeQueryCache cache = new CoffeeQueryCache(coffees);
+        Map<String, Integer> counts = cache.countByType();
+        Map<String, CoffeeStatistics> quality = cache.groupByBrand(CoffeeAttribute.QUALITY);
+        CoffeeStatistics price = cache.stats(CoffeeAttribute.PRICE);
+        Integer custom = cache.get("heavy", EnumSet.of(CoffeeAttribute.WEIGHT),
+                list -> (int) list.stream().filter(coffee -> coffee.getWeight() > 10).count());
+
+        GroundCoffee old = (GroundCoffee) coffees.get(1);
+        coffees.set(1, new GroundCoffee(old.getWeight(), 100.0, old.getQuality(), old.getBrand(), old.getVolume(), "Fine"));
+        assertSame(counts, cache.countByType());
+        assertSame(quality, cache.groupByBrand(CoffeeAttribute.QUALITY));
+        assertSame(custom, cache.get("heavy", EnumSet.of(CoffeeAttribute.WEIGHT), list -> -1));
+        assertNotSame(price, cache.stats(CoffeeAttribute.PRICE));
+        assertEquals(100.0, cache.stats(CoffeeAttribute.PRICE).getMax(), 0.0);
+
+        coffees.set(1, new GroundCoffee(old.getWeight(), 100.0, old.getQuality(), "Jacobs", old.getVolume(), "Fine"));
+        assertSame(counts, cache.countByType());
+        assertNotSame(quality, cache.groupByBrand(CoffeeAttribute.QUALITY));
+        cache.close();
+    }
+
+    @Test
+    public void keysAreSeparatedByTheirDependencies() {
+        CoffeeList coffees = catalogue();
+        try (CoffeeQueryCache cache = new CoffeeQueryCache(coffees)) {
+            assertEquals("weight", cache.get("q", EnumSet.of(CoffeeAttribute.WEIGHT), list -> "weight"));
+            assertEquals("price", cache.get("q", EnumSet.of(CoffeeAttribute.PRICE), list -> "price"));
+            assertEquals("any", cache.get("q", list -> "any"));
+
+            GroundCoffee old = (GroundCoffee) coffees.get(1);
+            coffees.set(1, new GroundCoffee(old.getWeight(), 12.0, old.getQuality(), old.getBrand(), old.getVolume(),
+                    "Fine"));
+            assertEquals("weight", cache.get("q", EnumSet.of(CoffeeAttribute.WEIGHT), list -> "recomputed"));
+            assertEquals("recomputed", cache.get("q", EnumSet.of(CoffeeAttribute.PRICE), list -> "recomputed"));
+            assertEquals("recomputed", cache.get("q", list -> "recomputed"));
+        }
+    }
+
+    @Test
+    public void cachedCoffeesAreReplacedWithTheList() {
+        CoffeeList coffees = catalogue();
+        CoffeeQueryCache cache = new CoffeeQueryCache(coffees);
+        List<Coffee> top = cache.topK(CoffeeAttribute.WEIGHT, 30);
+        Map<String, Integer> counts = cache.countByType();
+
+        GroundCoffee old = (GroundCoffee) coffees.get(1);
+        coffees.set(1, new GroundCoffee(old.getWeight(), old.getPrice(), old.getQuality(), old.getBrand(),
+                old.getVolume(), "Fine"));
+        assertSame(top, cache.topK(CoffeeAttribute.WEIGHT, 30));
+
+        coffees.set(1, new GroundCoffee(old.getWeight(), old.getPrice(), old.getQuality(), old.getBrand(),
+                old.getVolume(), "Coarse"));
+        assertNotSame(counts, cache.countByType());
+        assertTrue(coffees.containsAll(cache.topK(CoffeeAttribute.WEIGHT, 30)));
+        cache.close();
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntry() {
+        CoffeeQueryCache cache = new CoffeeQueryCache(catalogue(), 2);
+        List<Coffee> first = cache.topK(CoffeeAttribute.WEIGHT, 1);
+        cache.topK(CoffeeAttribute.WEIGHT, 2);
+        cache.topK(CoffeeAttribute.WEIGHT, 1);
+        cache.topK(CoffeeAttribute.WEIGHT, 3);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.topK(CoffeeAttribute.WEIGHT, 1));
+        assertEquals(0.4, cache.getHitRate(), 1e-9);
+    }
+}
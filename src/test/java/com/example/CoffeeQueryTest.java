@@ -0,0 +1,101 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeQuery}.
+ */
+public class CoffeeQueryTest {
+    private static final String[] BRANDS = {"Lavazza", "Nescafe", "Illy", "Starbucks"};
+
+    private static CoffeeList catalogue(int count) {
+        List<Coffee> coffees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            coffees.add(coffee(i % 97, BRANDS[i % BRANDS.length], i % 11));
+        }
+        return new CoffeeList(coffees);
+    }
+
+    private static List<Coffee> scan(List<Coffee> coffees, Predicate<Coffee> predicate) {
+        return coffees.stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    @Test
+    public void filtersTheListLazilyInListOrder() {
+        CoffeeList coffees = catalogue(5000);
+        CoffeeQuery query = CoffeeQuery.all()
+                .atLeast(CoffeeAttribute.QUALITY, 7)
+                .brandIn("Lavazza", "Nescafe")
+                .grindSize("Fine");
+
+        List<Coffee> expected = scan(coffees, coffee -> coffee.getQuality() >= 7
+                && (coffee.getBrand().equals("Lavazza") || coffee.getBrand().equals("Nescafe"))
+                && coffee instanceof GroundCoffee && ((GroundCoffee) coffee).getGrindSize().equals("Fine"));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, query.stream(coffees).collect(Collectors.toList()));
+        assertEquals(expected, StreamSupport.stream(query.spliterator(coffees), true).collect(Collectors.toList()));
+
+        Spliterator<Coffee> spliterator = query.spliterator(coffees);
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        assertTrue(spliterator.tryAdvance(coffee -> assertEquals(expected.get(0), coffee)));
+    }
+
+    @Test
+    public void mergesConditionsOnTheSameAttribute() {
+        CoffeeList coffees = catalogue(1000);
+        CoffeeQuery query = CoffeeQuery.all()
+                .atLeast(CoffeeAttribute.PRICE, 12)
+                .atMost(CoffeeAttribute.PRICE, 15)
+                .brandIn("Lavazza", "Illy", "Nescafe")
+                .brandIn("Illy", "Starbucks")
+                .ofKind(CoffeeKind.INSTANT);
+
+        List<Coffee> expected = scan(coffees, coffee -> coffee.getPrice() >= 12 && coffee.getPrice() <= 15
+                && coffee.getBrand().equals("Illy") && coffee instanceof InstantCoffee);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, query.stream(coffees).collect(Collectors.toList()));
+        for (Coffee coffee : coffees) {
+            assertEquals(expected.contains(coffee), query.test(coffee));
+        }
+        assertEquals(new ArrayList<>(coffees), CoffeeQuery.all().stream(coffees).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void usesTheIndexesOfAView() {
+        CoffeeList coffees = catalogue(3000);
+        CoffeeQuery query = CoffeeQuery.all()
+                .between(CoffeeAttribute.QUALITY, 3, 4)
+                .countryOfOrigin("Italy")
+                .brandIn("Starbucks");
+
+        try (IndexedCoffeeView view = new IndexedCoffeeView(coffees)) {
+            Set<Coffee> expected = new HashSet<>(query.stream(coffees).collect(Collectors.toList()));
+            assertFalse(expected.isEmpty());
+            List<Coffee> found = query.stream(view).collect(Collectors.toList());
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+
+            coffees.removeIf(coffee -> coffee.getQuality() == 3);
+            Set<Coffee> remaining = new HashSet<>(query.stream(coffees).collect(Collectors.toList()));
+            assertEquals(remaining, query.stream(view).collect(Collectors.toSet()));
+
+            CoffeeQuery unindexed = CoffeeQuery.all().ofKind(CoffeeKind.GROUND);
+            assertEquals(unindexed.stream(coffees).collect(Collectors.toList()),
+                    unindexed.stream(view).collect(Collectors.toList()));
+        }
+    }
+}
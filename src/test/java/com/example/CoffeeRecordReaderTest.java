@@ -0,0 +1,107 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link CoffeeRecordReader} and {@link CoffeeRecordWriter}.
+ */
+public class CoffeeRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<CoffeeRecordReader.RowError> errors = new ArrayList<>();
+
+    private static List<Coffee> catalogue(int count) {
+        List<Coffee> coffees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // The brand of every third coffee needs quoting in CSV.
+            coffees.add(coffee(i, i % 3 == 0 ? "Lavazza, \"Oro\"" : "Nescafe", i % 10));
+        }
+        return coffees;
+    }
+
+    private static void assertSameCoffees(List<Coffee> expected, List<Coffee> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getBrand(), actual.get(i).getBrand());
+            assertEquals(expected.get(i).getWeight(), actual.get(i).getWeight(), 0);
+            assertEquals(expected.get(i).getPrice(), actual.get(i).getPrice(), 0);
+            assertEquals(expected.get(i).getQuality(), actual.get(i).getQuality(), 0);
+        }
+    }
+
+    private static String write(List<Coffee> coffees, CoffeeRecordFormat format) throws IOException {
+        StringWriter text = new StringWriter();
+        try (CoffeeRecordWriter writer = new CoffeeRecordWriter(text, format)) {
+            writer.writeAll(coffees);
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void roundTripsBothFormats() throws IOException {
+        List<Coffee> coffees = catalogue(30);
+        for (CoffeeRecordFormat format : CoffeeRecordFormat.values()) {
+            List<Coffee> read = new ArrayList<>();
+            long count = new CoffeeRecordReader(format, errors::add)
+                    .read(new StringReader(write(coffees, format)), read::add);
+
+            assertEquals(30, count);
+            assertSameCoffees(coffees, read);
+        }
+        assertEquals(0, errors.size());
+    }
+
+    @Test
+    public void reportsInvalidRowsAndKeepsGoing() throws IOException {
+        String csv = "kind,brand,weight,price,quality,volume,detail\n"
+                + "GROUND,Nescafe,0.5,8.0,6.0,0.3,Fine\n"
+                + "GROUND,Nescafe,0.5,8.0,6.0,0.3,Chunky\n"
+                + "\n"
+                + "INSTANT,Taster's Choice,0.2,-7.0,9.0,0.1,Can\n"
+                + "WHOLE_BEAN,Lavazza,abc,10.0,8.5,0.5,Italy\r\n"
+                + "whole_bean,Lavazza,1.0,10.0,8.5,0.5,Italy\r\n";
+        List<Coffee> read = new ArrayList<>();
+        new CoffeeRecordReader(CoffeeRecordFormat.CSV, errors::add).read(new StringReader(csv), read::add);
+
+        assertEquals(2, read.size());
+        assertEquals(3, errors.size());
+        assertEquals(3, errors.get(0).getLine());
+        assertEquals(5, errors.get(1).getLine());
+        assertEquals("Weight and price must be positive.", errors.get(1).getMessage());
+        assertEquals(6, errors.get(2).getLine());
+    }
+
+    @Test
+    public void parallelReadKeepsFileOrderAndLineNumbers() throws IOException {
+        List<Coffee> coffees = catalogue(5000);
+        Path file = folder.getRoot().toPath().resolve("feed.csv");
+        String text = write(coffees, CoffeeRecordFormat.CSV) + "GROUND,Nescafe,0.5,8.0,6.0,0.3\n";
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(text);
+        }
+
+        CoffeeList read = new CoffeeRecordReader(CoffeeRecordFormat.CSV, errors::add).readParallel(file, 4);
+
+        assertSameCoffees(coffees, read);
+        assertEquals(1, errors.size());
+        assertEquals(5002, errors.get(0).getLine());
+    }
+}
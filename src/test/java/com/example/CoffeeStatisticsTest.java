@@ -0,0 +1,86 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeStatistics} and the aggregation methods of {@link CoffeeList}.
+ */
+public class CoffeeStatisticsTest {
+
+    private static CoffeeList coffees(int count) {
+        List<Coffee> coffees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            coffees.add(coffee(i % 300));
+        }
+        return new CoffeeList(coffees);
+    }
+
+    @Test
+    public void statsMatchStreamAggregationAboveAndBelowTheParallelThreshold() {
+        for (int size : new int[] {0, 1, 1000, CoffeeStatistics.PARALLEL_THRESHOLD * 3 + 17}) {
+            CoffeeList list = coffees(size);
+            for (CoffeeAttribute attribute : CoffeeAttribute.values()) {
+                DoubleSummaryStatistics expected = list.stream().mapToDouble(attribute::of).summaryStatistics();
+                CoffeeStatistics actual = list.stats(attribute);
+                assertEquals(expected.getCount(), actual.getCount());
+                assertEquals(expected.getSum(), actual.getSum(), 1e-6 * Math.max(1, expected.getSum()));
+                if (size > 0) {
+                    assertEquals(expected.getMin(), actual.getMin(), 0);
+                    assertEquals(expected.getMax(), actual.getMax(), 0);
+                    assertEquals(expected.getAverage(), actual.getAverage(), 1e-9);
+                } else {
+                    assertTrue(Double.isNaN(actual.getAverage()));
+                }
+            }
+            assertEquals(list.sum(CoffeeAttribute.PRICE), list.sumPrice(), 0);
+        }
+    }
+
+    @Test
+    public void quantilesInterpolateBetweenSortedValues() {
+        List<Coffee> coffees = new ArrayList<>();
+        for (int price = 1; price <= 5; price++) {
+            coffees.add(new GroundCoffee(1.0, price, 6.0, "Nescafe", 0.3, "Fine"));
+        }
+        CoffeeList list = new CoffeeList(coffees);
+
+        assertArrayEquals(new double[] {1.0, 2.0, 3.0, 4.5, 5.0},
+                list.quantiles(CoffeeAttribute.PRICE, 0, 0.25, 0.5, 0.875, 1), 1e-9);
+        assertTrue(Double.isNaN(new CoffeeList().quantiles(CoffeeAttribute.PRICE, 0.5)[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void quantilesRejectProbabilitiesOutsideTheUnitInterval() {
+        coffees(10).quantiles(CoffeeAttribute.PRICE, 1.5);
+    }
+
+    @Test
+    public void groupsByBrandAndKind() {
+        CoffeeList list = coffees(CoffeeStatistics.PARALLEL_THRESHOLD * 2 + 1);
+
+        Map<String, CoffeeStatistics> byBrand = list.groupByBrand(CoffeeAttribute.PRICE);
+        Map<CoffeeKind, CoffeeStatistics> byKind = list.groupByKind(CoffeeAttribute.PRICE);
+        assertEquals(3, byBrand.size());
+        assertEquals(3, byKind.size());
+        long total = 0;
+        for (CoffeeKind kind : CoffeeKind.values()) {
+            DoubleSummaryStatistics expected = list.stream().filter(coffee -> CoffeeKind.of(coffee) == kind)
+                    .mapToDouble(Coffee::getPrice).summaryStatistics();
+            assertEquals(expected.getCount(), byKind.get(kind).getCount());
+            assertEquals(expected.getMax(), byKind.get(kind).getMax(), 0);
+            total += byKind.get(kind).getCount();
+        }
+        assertEquals(list.size(), total);
+        assertEquals(byKind.get(CoffeeKind.GROUND).getSum(), byBrand.get("Nescafe").getSum(), 1e-6);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CoffeeStrings} and the type labels of the coffee subtypes.
+ */
+public class CoffeeStringsTest {
+
+    @Test
+    public void internReturnsOneInstancePerValue() {
+        String first = CoffeeStrings.intern(new String("Ethiopia"));
+        assertSame(first, CoffeeStrings.intern(new String("Ethiopia")));
+        assertNull(CoffeeStrings.intern(null));
+    }
+
+    @Test
+    public void coffeesShareTheirDetailsAndTypeLabels() {
+        WholeBeanCoffee first = new WholeBeanCoffee(1.0, 10.0, 5.0, new String("Lavazza"), 0.5, new String("Brazil"));
+        WholeBeanCoffee second = new WholeBeanCoffee(2.0, 12.0, 6.0, new String("Lavazza"), 0.5, new String("Brazil"));
+        assertEquals("Whole Bean (Brazil)", first.getType());
+        assertSame(first.getType(), second.getType());
+        assertSame(first.getType(), first.getType());
+        assertSame(first.getCountryOfOrigin(), second.getCountryOfOrigin());
+        assertSame(first.getBrand(), second.getBrand());
+
+        GroundCoffee ground = new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, new String("Fine"));
+        assertEquals("Ground (Fine)", ground.getType());
+        assertSame(ground.getType(), new GroundCoffee(0.7, 9.0, 5.5, "Starbucks", 0.35, "Fine").getType());
+
+        InstantCoffee instant = new InstantCoffee(0.2, 7.0, 9.0, "Taster's Choice", 0.1, new String("Jar"));
+        assertEquals("Instant (Jar)", instant.getType());
+        assertSame(instant.getPackageType(), new InstantCoffee(0.2, 7.0, 9.0, "Nescafe", 0.1, "Jar").getPackageType());
+    }
+}
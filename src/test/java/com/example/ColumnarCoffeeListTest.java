@@ -0,0 +1,115 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ColumnarCoffeeList}.
+ */
+public class ColumnarCoffeeListTest {
+    private final List<Coffee> coffees = Arrays.asList(
+            new WholeBeanCoffee(1.0, 10.0, 8.5, "Lavazza", 0.5, "Italy"),
+            new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine"),
+            new InstantCoffee(0.2, 7.0, 9.0, "Taster's Choice", 0.1, "Can"),
+            new GroundCoffee(0.5, 12.0, 4.5, "Lavazza", 0.4, "Medium"));
+
+    @Test
+    public void storesAndRebuildsEveryKindOfCoffee() {
+        ColumnarCoffeeList list = new ColumnarCoffeeList(coffees);
+        list.remove(1);
+        list.add(0, coffees.get(1));
+
+        assertEquals(4, list.size());
+        Coffee ground = list.get(0);
+        assertTrue(ground instanceof GroundCoffee);
+        assertEquals("Ground (Fine)", ground.getType());
+        assertEquals("Nescafe", ground.getBrand());
+        assertEquals(CoffeeKind.INSTANT, list.kindAt(2));
+        assertEquals("Can", list.detailAt(2));
+        assertEquals("Whole Bean (Italy)", list.get(1).getType());
+    }
+
+    @Test
+    public void scansColumnsWithoutBuildingCoffees() {
+        ColumnarCoffeeList list = new ColumnarCoffeeList(coffees);
+
+        assertEquals(37.0, list.sum(CoffeeAttribute.PRICE), 1e-9);
+        assertEquals(7.0, list.average(CoffeeAttribute.QUALITY), 1e-9);
+        assertEquals(10 + 16 + 35 + 24, list.sum(CoffeeAttribute.PRICE_TO_WEIGHT), 1e-9);
+        assertEquals(2, list.countBrand("Lavazza"));
+        assertEquals(0, list.countBrand("Starbucks"));
+
+        double weight = 0;
+        ColumnarCoffeeList.Cursor cursor = list.cursor();
+        while (cursor.next()) {
+            weight += cursor.weight();
+        }
+        assertEquals(2.2, weight, 1e-9);
+        assertFalse(cursor.next());
+        assertEquals("Medium", cursor.moveTo(3).detail());
+    }
+
+    @Test
+    public void rejectsUnsupportedCoffeesWithoutChangingTheList() {
+        ColumnarCoffeeList list = new ColumnarCoffeeList(coffees);
+        Coffee unsupported = new Coffee(1.0, 5.0, 5.0, "Other", 0.2) {
+            @Override
+            public String getType() {
+                return "Capsule";
+            }
+        };
+        try {
+            list.add(1, unsupported);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            list.set(1, unsupported);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(coffees.size(), list.size());
+        for (int i = 0; i < coffees.size(); i++) {
+            assertEquals(coffees.get(i).getType(), list.get(i).getType());
+            assertEquals(coffees.get(i).getBrand(), list.get(i).getBrand());
+            assertEquals(coffees.get(i).getPrice(), list.get(i).getPrice(), 0);
+        }
+    }
+
+    @Test
+    public void cursorRejectsReadsOffARowOrAfterAModification() {
+        ColumnarCoffeeList list = new ColumnarCoffeeList(coffees);
+        ColumnarCoffeeList.Cursor cursor = list.cursor();
+        try {
+            cursor.weight();
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        while (cursor.next()) {
+        }
+        try {
+            cursor.price();
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+
+        cursor.moveTo(0);
+        list.clear();
+        try {
+            cursor.brand();
+            fail("Expected ConcurrentModificationException");
+        } catch (ConcurrentModificationException expected) {
+        }
+        list.add(coffees.get(2));
+        assertEquals("Taster's Choice", list.brandAt(0));
+        assertEquals("Can", list.detailAt(0));
+    }
+}
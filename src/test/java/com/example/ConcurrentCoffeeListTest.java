@@ -0,0 +1,174 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ConcurrentCoffeeList}.
+ */
+public class ConcurrentCoffeeListTest {
+    private final Coffee espresso = new WholeBeanCoffee(1.0, 10.0, 8.5, "Lavazza", 0.5, "Italy");
+    private final Coffee americano = new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine");
+    private final Coffee instant = new InstantCoffee(0.2, 7.0, 9.0, "Taster's Choice", 0.1, "Can");
+
+    @Test
+    public void iteratorsKeepTheirSnapshotAcrossRemovals() {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(Arrays.asList(espresso, americano, instant));
+        Iterator<Coffee> iterator = list.iterator();
+        list.remove(americano);
+        list.add(0, instant);
+        list.add(espresso);
+
+        List<Coffee> seen = new ArrayList<>();
+        iterator.forEachRemaining(seen::add);
+        assertEquals(Arrays.asList(espresso, americano, instant), seen);
+        assertEquals(Arrays.asList(instant, espresso, instant, espresso), list);
+    }
+
+    @Test
+    public void replacementsLeaveSnapshotsIntact() {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(Arrays.asList(espresso, americano));
+        List<Coffee> before = list.snapshot();
+        Iterator<Coffee> iterator = list.iterator();
+        assertEquals(americano, list.set(1, instant));
+
+        List<Coffee> seen = new ArrayList<>();
+        iterator.forEachRemaining(seen::add);
+        assertEquals(Arrays.asList(espresso, americano), seen);
+        assertEquals(Arrays.asList(espresso, americano), before);
+        assertEquals(Arrays.asList(espresso, instant), list);
+    }
+
+    @Test
+    public void batchPublishesAllEditsAtOnce() {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(Arrays.asList(espresso, americano));
+        List<Coffee> before = list.snapshot();
+        list.batch(working -> {
+            working.add(0, instant);
+            working.remove(espresso);
+            working.set(1, espresso);
+        });
+
+        assertEquals(Arrays.asList(espresso, americano), before);
+        assertEquals(Arrays.asList(instant, espresso), list);
+    }
+
+    @Test
+    public void batchRejectsEditsOfTheListItself() {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(Arrays.asList(espresso, americano));
+        try {
+            list.batch(working -> {
+                working.add(instant);
+                list.add(instant);
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // the write lock is not reentrant
+        }
+        assertEquals(Arrays.asList(espresso, americano), list);
+
+        list.add(instant);
+        assertEquals(Arrays.asList(espresso, americano, instant), list);
+    }
+
+    @Test
+    public void removeAllAndRetainAllAcceptLargeLists() {
+        List<Coffee> coffees = new ArrayList<>();
+        List<Coffee> retained = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Coffee coffee = new GroundCoffee(1.0, i + 1, 5.0, "Brand" + i, 0.5, "Fine");
+            coffees.add(coffee);
+            if (i % 3 == 0) retained.add(coffee);
+        }
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(coffees);
+        assertTrue(list.retainAll(retained));
+        assertEquals(retained, list);
+
+        assertTrue(list.removeAll(retained.subList(0, 100)));
+        assertEquals(retained.subList(100, retained.size()), list);
+    }
+
+    @Test
+    public void sortAndReplaceAllPublishANewSnapshot() {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(Arrays.asList(espresso, americano, instant));
+        List<Coffee> before = list.snapshot();
+        list.sort(Comparator.comparingDouble(Coffee::getPrice));
+        assertEquals(Arrays.asList(instant, americano, espresso), list);
+        assertEquals(Arrays.asList(espresso, americano, instant), before);
+
+        list.replaceAll(coffee -> coffee == americano ? espresso : coffee);
+        assertEquals(Arrays.asList(instant, espresso, espresso), list);
+
+        try {
+            list.replaceAll(coffee -> coffee == instant ? null : coffee);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException expected) {
+            // replacements cannot be null
+        }
+        assertEquals(Arrays.asList(instant, espresso, espresso), list);
+    }
+
+    @Test
+    public void addAllAtAPositionInsertsInOneStep() {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList(Arrays.asList(espresso, instant));
+        List<Coffee> before = list.snapshot();
+        assertTrue(list.addAll(1, Arrays.asList(americano, americano)));
+        assertEquals(Arrays.asList(espresso, americano, americano, instant), list);
+        assertEquals(Arrays.asList(espresso, instant), before);
+        assertFalse(list.addAll(4, Collections.<Coffee>emptyList()));
+        try {
+            list.addAll(5, Arrays.asList(espresso));
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            // the position is past the end
+        }
+    }
+
+    @Test
+    public void readersNeverSeeTornStatesWhileAWriterAppendsAndRemoves() throws InterruptedException {
+        ConcurrentCoffeeList list = new ConcurrentCoffeeList();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        int count = 0;
+                        for (Coffee coffee : list) {
+                            assertTrue(coffee == espresso || coffee == americano);
+                            count++;
+                        }
+                        assertTrue(count <= 1000);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            readers[r].start();
+        }
+        for (int i = 0; i < 1000; i++) {
+            list.add(espresso);
+            list.add(americano);
+            list.remove(0);
+        }
+        done.set(true);
+        for (Thread reader : readers) reader.join();
+
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertEquals(1000, list.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link IndexedCoffeeView}.
+ */
+public class IndexedCoffeeViewTest {
+    private final Coffee espresso = new WholeBeanCoffee(1.0, 10.0, 8.5, "Lavazza", 0.5, "Italy");
+    private final Coffee americano = new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine");
+    private final Coffee instant = new InstantCoffee(0.2, 7.0, 9.0, "Taster's Choice", 0.1, "Can");
+    private final Coffee caribou = new GroundCoffee(0.5, 12.0, 4.5, "Caribou", 0.4, "Medium");
+    private final Coffee latte = new GroundCoffee(0.7, 9.0, 5.5, "Lavazza", 0.35, "Fine");
+
+    @Test
+    public void indexesExistingElementsAndFollowsModifications() {
+        CoffeeList list = new CoffeeList(Arrays.asList(espresso, americano, instant));
+        IndexedCoffeeView view = new IndexedCoffeeView(list);
+        assertEquals(Arrays.asList(americano), view.byGrindSize("Fine"));
+        assertEquals(Arrays.asList(espresso), view.byCountryOfOrigin("Italy"));
+        assertEquals(Arrays.asList(instant), view.byPackageType("Can"));
+
+        list.add(latte);
+        list.add(1, caribou);
+        assertEquals(new HashSet<>(Arrays.asList(espresso, latte)), new HashSet<>(view.byBrand("Lavazza")));
+        assertEquals(new HashSet<>(Arrays.asList(americano, latte, instant)),
+                new HashSet<>(view.inRange(CoffeeAttribute.PRICE, 7.0, 9.0)));
+
+        list.set(0, americano);
+        list.remove(latte);
+        assertEquals(Arrays.asList(americano, americano), view.byGrindSize("Fine"));
+        assertTrue(view.byBrand("Lavazza").isEmpty());
+
+        list.removeIf(coffee -> coffee.getQuality() < 5);
+        assertTrue(view.inRange(CoffeeAttribute.QUALITY, 0, 5).isEmpty());
+        assertEquals(2, view.inRange(CoffeeAttribute.PRICE_TO_WEIGHT, 16.0, 16.0).size());
+
+        list.clear();
+        assertTrue(view.inRange(CoffeeAttribute.WEIGHT, 0, 100).isEmpty());
+    }
+
+    @Test
+    public void closedViewStopsFollowingTheList() {
+        CoffeeList list = new CoffeeList(espresso);
+        IndexedCoffeeView view = new IndexedCoffeeView(list);
+        view.close();
+        list.add(latte);
+
+        assertEquals(new ArrayList<>(Arrays.asList(espresso)), view.byBrand("Lavazza"));
+    }
+
+    @Test
+    public void stopsCountingARangeAtTheLimit() {
+        CoffeeList list = new CoffeeList(Arrays.asList(espresso, americano, instant, caribou, latte));
+        try (IndexedCoffeeView view = new IndexedCoffeeView(list)) {
+            assertEquals(3, view.countInRange(CoffeeAttribute.PRICE, 7.0, 9.0, Integer.MAX_VALUE));
+            assertEquals(2, view.countInRange(CoffeeAttribute.PRICE, 7.0, 9.0, 2));
+            assertEquals(0, view.countInRange(CoffeeAttribute.PRICE, 9.0, 7.0, 2));
+        }
+    }
+}
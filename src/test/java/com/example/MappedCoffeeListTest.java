@@ -0,0 +1,64 @@
+package com.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedCoffeeList}.
+ */
+public class MappedCoffeeListTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopenedFileHoldsTheAppendedCoffees() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("catalogue.coffee");
+        try (MappedCoffeeList list = new MappedCoffeeList(file)) {
+            list.add(new WholeBeanCoffee(1.0, 10.0, 8.5, "Lavazza", 0.5, "Italy"));
+            list.add(new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine"));
+            list.add(new InstantCoffee(0.2, 7.0, 9.0, "Lavazza", 0.1, "Can"));
+            list.set(1, new GroundCoffee(0.5, 9.0, 6.0, "Nescafe", 0.3, "Coarse"));
+        }
+
+        try (MappedCoffeeList list = new MappedCoffeeList(file)) {
+            assertEquals(3, list.size());
+            assertEquals("Whole Bean (Italy)", list.get(0).getType());
+            assertEquals("Ground (Coarse)", list.get(1).getType());
+            assertEquals(9.0, list.valueAt(CoffeeAttribute.PRICE, 1), 0);
+            assertTrue(list.get(2) instanceof InstantCoffee);
+            assertEquals("Lavazza", list.get(2).getBrand());
+
+            list.add(new WholeBeanCoffee(1.5, 15.0, 8.0, "Peet's", 2.0, "Colombia"));
+            assertEquals("Peet's", list.get(3).getBrand());
+        }
+    }
+
+    @Test
+    public void headerCountsOnlyForcedAppends() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("catalogue.coffee");
+        try (MappedCoffeeList list = new MappedCoffeeList(file)) {
+            list.add(new WholeBeanCoffee(1.0, 10.0, 8.5, "Lavazza", 0.5, "Italy"));
+            list.add(new GroundCoffee(0.5, 8.0, 6.0, "Nescafe", 0.3, "Fine"));
+            list.force();
+            list.add(new InstantCoffee(0.2, 7.0, 9.0, "Peet's", 0.1, "Can"));
+
+            try (MappedCoffeeList reopened = new MappedCoffeeList(file)) {
+                assertEquals(2, reopened.size());
+                assertEquals("Ground (Fine)", reopened.get(1).getType());
+            }
+        }
+
+        try (MappedCoffeeList list = new MappedCoffeeList(file)) {
+            assertEquals(3, list.size());
+            assertEquals("Peet's", list.get(2).getBrand());
+        }
+    }
+}
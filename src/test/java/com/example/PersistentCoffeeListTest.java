@@ -0,0 +1,105 @@
+package com.example;
+
+import static com.example.TestCoffees.coffee;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PersistentCoffeeList}.
+ */
+public class PersistentCoffeeListTest {
+
+    @Test
+    public void snapshotsStayUnchangedWhileTheListKeepsChanging() {
+        PersistentCoffeeList list = new PersistentCoffeeList();
+        List<Coffee> expected = new ArrayList<>();
+        List<List<Coffee>> snapshots = new ArrayList<>();
+        List<List<Coffee>> snapshotContents = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int step = 0; step < 60000; step++) {
+            int operation = random.nextInt(100);
+            if (operation < 70 || expected.isEmpty()) {
+                Coffee coffee = coffee(step);
+                list.add(coffee);
+                expected.add(coffee);
+            } else if (operation < 85) {
+                int index = random.nextInt(expected.size());
+                Coffee coffee = coffee(step + 100000);
+                list.set(index, coffee);
+                expected.set(index, coffee);
+            } else if (operation < 99) {
+                list.remove(list.size() - 1);
+                expected.remove(expected.size() - 1);
+            } else {
+                int index = random.nextInt(expected.size());
+                list.remove(index);
+                expected.remove(index);
+            }
+            if (step % 5000 == 0) {
+                snapshots.add(list.snapshot());
+                snapshotContents.add(new ArrayList<>(expected));
+            }
+        }
+
+        assertEquals(expected, list);
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(snapshotContents.get(i), snapshots.get(i));
+        }
+    }
+
+    @Test
+    public void shrinksBackToAnEmptyList() {
+        PersistentCoffeeList list = new PersistentCoffeeList();
+        for (int i = 0; i < 40000; i++) {
+            list.add(coffee(i));
+        }
+        List<Coffee> full = list.snapshot();
+        while (!list.isEmpty()) {
+            list.remove(list.size() - 1);
+        }
+        list.add(0, coffee(7));
+
+        assertEquals(1, list.size());
+        assertEquals(40000, full.size());
+        assertEquals(15.0, list.get(0).getPrice(), 0);
+        assertEquals(40009.0, full.get(39999).getPrice(), 0);
+    }
+
+    @Test
+    public void insertsAndRemovesAnywhereWithoutChangingSnapshots() {
+        PersistentCoffeeList list = new PersistentCoffeeList();
+        List<Coffee> expected = new ArrayList<>();
+        List<List<Coffee>> snapshots = new ArrayList<>();
+        List<List<Coffee>> snapshotContents = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 80000; step++) {
+            // grow during the first half of the run and shrink during the second
+            int insertShare = step < 40000 ? 60 : 40;
+            if (random.nextInt(100) < insertShare || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                Coffee coffee = coffee(step);
+                list.add(index, coffee);
+                expected.add(index, coffee);
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            }
+            if (step % 4000 == 0) {
+                snapshots.add(list.snapshot());
+                snapshotContents.add(new ArrayList<>(expected));
+            }
+        }
+
+        assertEquals(expected, list);
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(snapshotContents.get(i), snapshots.get(i));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coffees shared by the unit tests: the kind cycles through whole bean, ground and
+ * instant coffee, and the weight and price grow with the number of the coffee, so
+ * coffees with different numbers are never equal.
+ */
+final class TestCoffees {
+
+    private TestCoffees() {
+    }
+
+    /**
+     * Returns the coffee with the specified number, with the default brand and quality of
+     * its kind.
+     *
+     * @param i the number of the coffee
+     * @return the coffee
+     */
+    static Coffee coffee(int i) {
+        switch (i % 3) {
+            case 0:
+                return coffee(i, "Lavazza", 5.0);
+            case 1:
+                return coffee(i, "Nescafe", 6.0);
+            default:
+                return coffee(i, "Taster's Choice", 9.0);
+        }
+    }
+
+    /**
+     * Returns the coffee with the specified number, brand and quality.
+     *
+     * @param i       the number of the coffee
+     * @param brand   the brand of the coffee
+     * @param quality the quality of the coffee
+     * @return the coffee
+     */
+    static Coffee coffee(int i, String brand, double quality) {
+        switch (i % 3) {
+            case 0:
+                return new WholeBeanCoffee(1.0 + i, 10.0 + i, quality, brand, 0.5, "Italy");
+            case 1:
+                return new GroundCoffee(0.5 + i, 8.0 + i, quality, brand, 0.3, "Fine");
+            default:
+                return new InstantCoffee(0.2 + i, 7.0 + i, quality, brand, 0.1, "Can");
+        }
+    }
+
+    /**
+     * Returns a new list of the coffees numbered from 0 to {@code count - 1}.
+     *
+     * @param count the number of coffees
+     * @return the coffees, in order
+     */
+    static List<Coffee> coffees(int count) {
+        List<Coffee> coffees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            coffees.add(coffee(i));
+        }
+        return coffees;
+    }
+}